@@ -0,0 +1,17 @@
+uniform sampler2D palette;
+
+varying vec3 normal;
+varying float material;
+
+void main()
+{
+    const vec3 LightDirection = vec3( 0.267, 0.802, 0.535 );
+
+    // look the material's color up in the palette
+    vec4 color = texture2D( palette, vec2( ( material + 0.5 ) / 256.0, 0.5 ) );
+
+    // shade the faces by how much they face the light
+    float light = 0.6 + 0.4 * max( dot( normal, LightDirection ), 0.0 );
+
+    gl_FragColor = vec4( color.rgb * light, color.a );
+}
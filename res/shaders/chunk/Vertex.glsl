@@ -0,0 +1,19 @@
+uniform vec3 chunkOffset;
+
+varying vec3 normal;
+varying float material;
+
+void main()
+{
+    // the w coordinate holds the face in its lowest three bits, and the material's palette index above them
+    float face = mod( gl_Vertex.w, 8.0 );
+    material = floor( gl_Vertex.w / 8.0 );
+
+    // faces are ordered -x, +x, -y, +y, -z, +z
+    float axis = floor( face / 2.0 );
+    float direction = mod( face, 2.0 ) * 2.0 - 1.0;
+    normal = vec3( equal( vec3( axis ), vec3( 0.0, 1.0, 2.0 ) ) ) * direction;
+
+    // move the vertex out of the chunk's local space
+    gl_Position = gl_ModelViewProjectionMatrix * vec4( gl_Vertex.xyz + chunkOffset, 1.0 );
+}
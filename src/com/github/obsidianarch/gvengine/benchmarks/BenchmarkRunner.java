@@ -0,0 +1,47 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package with the allocation profiler. None of the benchmarks open a display or touch OpenGL, so they run headless. The
+ * usual JMH command line arguments are accepted, so a single benchmark can be run with a regular expression, for example {@code MeshingBenchmark.buildMesh}.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class BenchmarkRunner
+{
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args
+     *         JMH command line arguments.
+     *
+     * @throws Exception
+     *         If the arguments couldn't be parsed, or a benchmark failed.
+     *
+     * @since 26.10.17
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        CommandLineOptions commandLine = new CommandLineOptions( args );
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent( commandLine );
+        builder.addProfiler( GCProfiler.class ); // reports the bytes allocated per operation
+
+        if ( args.length == 0 )
+        {
+            builder.include( BenchmarkRunner.class.getPackage().getName() + "\\..*" );
+        }
+
+        Options options = builder.build();
+        new Runner( options ).run();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import com.github.obsidianarch.gvengine.core.Chunk;
+import com.github.obsidianarch.gvengine.core.ChunkGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each chunk generator takes to fill a chunk. A new chunk is generated every time, as setting a voxel to the material it already has
+ * returns early, so the time includes creating the chunk's arrays and keeping its visibility masks and counters up to date.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class GenerationBenchmark
+{
+
+    //
+    // Parameters
+    //
+
+    /**
+     * The name of the generator being measured.
+     */
+    @Param( { "sphere", "modulus", "sphereModulus", "random" } )
+    public String generatorName;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The generator being measured.
+     */
+    private ChunkGenerator generator;
+
+    //
+    // Setup
+    //
+
+    /**
+     * Creates the generator.
+     *
+     * @since 26.10.17
+     */
+    @Setup
+    public void setup()
+    {
+        generator = Generators.create( generatorName );
+    }
+
+    //
+    // Benchmarks
+    //
+
+    /**
+     * Generates a chunk which isn't part of a region.
+     *
+     * @return The generated chunk.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public Chunk generateChunk()
+    {
+        Chunk c = new Chunk( null, 0, 0, 0 );
+        generator.generateChunk( c );
+        return c;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import com.github.obsidianarch.gvengine.core.ChunkGenerator;
+import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGModulus;
+import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGRandom;
+import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGSphere;
+import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGSphereModulus;
+
+/**
+ * Creates the chunk generators benchmarked, by the names used in the benchmarks' {@code @Param}s.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+final class Generators
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The seed used by the random generator, so every run benchmarks the same voxels.
+     */
+    public static final long SEED = 0x5EEDL;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private Generators()
+    {
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Creates a chunk generator by its name.
+     *
+     * @param name
+     *         The name of the generator, one of "sphere", "modulus", "sphereModulus" or "random".
+     *
+     * @return The chunk generator.
+     *
+     * @since 26.10.17
+     */
+    public static ChunkGenerator create( String name )
+    {
+        switch ( name )
+        {
+            case "sphere":
+                return new CGSphere();
+
+            case "modulus":
+                return new CGModulus();
+
+            case "sphereModulus":
+                return new CGSphereModulus();
+
+            case "random":
+                return new CGRandom( SEED );
+
+            default:
+                throw new IllegalArgumentException( "Unknown chunk generator: " + name );
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import com.github.obsidianarch.gvengine.core.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU half of building a chunk's mesh, everything up until the vertices are handed to OpenGL. The chunk measured is in the middle of a
+ * region, so every neighbour is captured into its snapshots. Nothing here touches OpenGL, so it runs headless.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class MeshingBenchmark
+{
+
+    //
+    // Parameters
+    //
+
+    /**
+     * The name of the generator filling the region.
+     */
+    @Param( { "sphere", "modulus", "sphereModulus", "random" } )
+    public String generatorName;
+
+    /**
+     * The name of the mesher, one of "face", "greedy" or "binary".
+     */
+    @Param( { "face", "greedy", "binary" } )
+    public String mesherName;
+
+    /**
+     * The format the vertices are written in.
+     */
+    @Param( { "STANDARD", "PACKED" } )
+    public ChunkVertexFormat format;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The chunk being meshed.
+     */
+    private Chunk chunk;
+
+    /**
+     * The mesher being measured.
+     */
+    private ChunkMesher mesher;
+
+    /**
+     * A snapshot of the chunk, reused by the benchmarks which don't measure taking it.
+     */
+    private ChunkSnapshot snapshot;
+
+    /**
+     * The buffer the vertices are written to.
+     */
+    private MeshBuffer mesh;
+
+    //
+    // Setup
+    //
+
+    /**
+     * Generates the region and takes the snapshot of its middle chunk.
+     *
+     * @since 26.10.17
+     */
+    @Setup
+    public void setup()
+    {
+        switch ( mesherName )
+        {
+            case "face":
+                mesher = new FaceChunkMesher();
+                break;
+
+            case "greedy":
+                mesher = new GreedyChunkMesher();
+                break;
+
+            case "binary":
+                mesher = new BinaryChunkMesher();
+                break;
+
+            default:
+                throw new IllegalArgumentException( "Unknown mesher: " + mesherName );
+        }
+
+        Chunk.setMesher( mesher );
+        MeshingPool.Threads = 0; // buildMeshData is called directly
+
+        Region region = new Region( Generators.create( generatorName ), 0, 0, 0 );
+        region.getChunks(); // creates every chunk, so the middle chunk has all of its neighbours
+        chunk = region.getChunkAt( 1, 1, 1 );
+        snapshot = ChunkSnapshot.acquire( chunk );
+        mesh = MeshBuffer.acquire( format );
+    }
+
+    /**
+     * Returns the snapshot and buffer to their pools.
+     *
+     * @since 26.10.17
+     */
+    @TearDown
+    public void tearDown()
+    {
+        snapshot.release();
+        mesh.release();
+    }
+
+    //
+    // Benchmarks
+    //
+
+    /**
+     * Copies the chunk and its neighbours' borders into a snapshot.
+     *
+     * @return The snapshot.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public ChunkSnapshot captureSnapshot()
+    {
+        snapshot.capture( chunk );
+        return snapshot;
+    }
+
+    /**
+     * Meshes every section of the snapshot.
+     *
+     * @return The number of vertices written.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public int buildMesh()
+    {
+        mesh.clear();
+        mesher.buildMesh( snapshot, mesh );
+        return mesh.getVertexCount();
+    }
+
+    /**
+     * Computes which faces of the chunk can see each other.
+     *
+     * @return The connectivity graph.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public long computeConnectivity()
+    {
+        return ChunkConnectivity.compute( snapshot );
+    }
+
+    /**
+     * Takes a snapshot of the chunk and builds every section's mesh, as a worker thread would. The meshes are left waiting for an upload which never
+     * comes, so each rebuild replaces the last.
+     *
+     * @return The chunk.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public Chunk buildMeshData()
+    {
+        chunk.buildMeshData( chunk.takeSnapshot() );
+        return chunk;
+    }
+
+}
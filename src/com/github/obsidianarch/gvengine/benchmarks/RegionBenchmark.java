@@ -0,0 +1,77 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import com.github.obsidianarch.gvengine.core.ChunkGenerator;
+import com.github.obsidianarch.gvengine.core.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating a whole region, which generates every one of its chunks.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RegionBenchmark
+{
+
+    //
+    // Parameters
+    //
+
+    /**
+     * The name of the generator filling the region.
+     */
+    @Param( { "sphere", "modulus", "sphereModulus", "random" } )
+    public String generatorName;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The generator filling the region.
+     */
+    private ChunkGenerator generator;
+
+    //
+    // Setup
+    //
+
+    /**
+     * Creates the generator.
+     *
+     * @since 26.10.17
+     */
+    @Setup
+    public void setup()
+    {
+        generator = Generators.create( generatorName );
+    }
+
+    //
+    // Benchmarks
+    //
+
+    /**
+     * Creates and generates a region.
+     *
+     * @return The region.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public Region createRegion()
+    {
+        Region region = new Region( generator, 0, 0, 0 );
+        region.getChunks(); // regions create their chunks lazily, so every chunk is asked for
+        return region;
+    }
+
+}
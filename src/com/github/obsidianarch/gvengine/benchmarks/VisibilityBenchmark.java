@@ -0,0 +1,166 @@
+package com.github.obsidianarch.gvengine.benchmarks;
+
+import com.github.obsidianarch.gvengine.core.Chunk;
+import com.github.obsidianarch.gvengine.core.Face;
+import com.github.obsidianarch.gvengine.core.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the visibility queries on a chunk, and keeping its visibility masks up to date as voxels are changed.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class VisibilityBenchmark
+{
+
+    //
+    // Parameters
+    //
+
+    /**
+     * The name of the generator filling the region.
+     */
+    @Param( { "sphere", "modulus", "sphereModulus", "random" } )
+    public String generatorName;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The chunk being queried, in the middle of the region.
+     */
+    private Chunk chunk;
+
+    /**
+     * Every face, cached as {@code Face.values()} copies the array on every call.
+     */
+    private final Face[] faces = Face.values();
+
+    /**
+     * The index of the next voxel to edit.
+     */
+    private int editIndex = 0;
+
+    //
+    // Setup
+    //
+
+    /**
+     * Generates the region.
+     *
+     * @since 26.10.17
+     */
+    @Setup
+    public void setup()
+    {
+        Region region = new Region( Generators.create( generatorName ), 0, 0, 0 );
+        region.getChunks(); // creates every chunk, so the middle chunk has all of its neighbours
+        chunk = region.getChunkAt( 1, 1, 1 );
+    }
+
+    //
+    // Benchmarks
+    //
+
+    /**
+     * Checks if every voxel in the chunk is renderable.
+     *
+     * @return The number of renderable voxels.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public int isRenderable()
+    {
+        int count = 0;
+
+        for ( int z = 0; z < Chunk.LENGTH; z++ )
+        {
+            for ( int y = 0; y < Chunk.LENGTH; y++ )
+            {
+                for ( int x = 0; x < Chunk.LENGTH; x++ )
+                {
+                    if ( chunk.isRenderable( x, y, z ) )
+                    {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks if every face of every voxel in the chunk is visible.
+     *
+     * @return The number of visible faces.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public int isVisible()
+    {
+        int count = 0;
+
+        for ( int z = 0; z < Chunk.LENGTH; z++ )
+        {
+            for ( int y = 0; y < Chunk.LENGTH; y++ )
+            {
+                for ( int x = 0; x < Chunk.LENGTH; x++ )
+                {
+                    for ( Face face : faces )
+                    {
+                        if ( chunk.isVisible( face, x, y, z ) )
+                        {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Recomputes the visibility mask of every voxel in the chunk.
+     *
+     * @return The chunk.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public Chunk updateVisibility()
+    {
+        chunk.updateVisibility();
+        return chunk;
+    }
+
+    /**
+     * Flips a single voxel between air and stone, which updates the masks of it and its neighbours. The voxels are visited in a scattered order, so the
+     * edits hit the chunk's borders as well as its inside.
+     *
+     * @return The chunk.
+     *
+     * @since 26.10.17
+     */
+    @Benchmark
+    public Chunk setMaterialAt()
+    {
+        editIndex = ( editIndex + 1543 ) % Chunk.VOLUME; // 1543 is prime, so every voxel is visited
+        chunk.setMaterialAt( ( byte ) ( chunk.getMaterialIdAt( editIndex ) == 0 ? 1 : 0 ), editIndex );
+        return chunk;
+    }
+
+}
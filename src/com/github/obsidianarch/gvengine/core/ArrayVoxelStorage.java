@@ -0,0 +1,55 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Stores every voxel as a byte, the fastest storage to read and write but the largest.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class ArrayVoxelStorage extends VoxelStorage
+{
+
+    //
+    // Fields
+    //
+
+    /**
+     * The material id of every voxel.
+     */
+    private final byte[] voxels = new byte[ Chunk.VOLUME ];
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public byte get( int index )
+    {
+        return voxels[ index ];
+    }
+
+    @Override
+    public void set( int index, byte b )
+    {
+        voxels[ index ] = b;
+    }
+
+    @Override
+    public void copyTo( int index, byte[] dest, int destIndex, int length )
+    {
+        System.arraycopy( voxels, index, dest, destIndex, length );
+    }
+
+    @Override
+    public void copyFrom( int index, byte[] src, int srcIndex, int length )
+    {
+        System.arraycopy( src, srcIndex, voxels, index, length );
+    }
+
+    @Override
+    public int getMemoryUsage()
+    {
+        return voxels.length;
+    }
+
+}
@@ -0,0 +1,375 @@
+package com.github.obsidianarch.gvengine.core;
+
+import java.util.Arrays;
+
+/**
+ * Produces the same mesh as the GreedyChunkMesher, but finds the visible faces with bitwise operations instead of checking one voxel at a time. The
+ * solidity of every column of voxels along each axis (including the voxel from the neighbouring chunk at either end) is packed into the bits of an int, so
+ * the visible faces of a whole column are found with a single shift and mask. The faces are then transposed into a bit mask per row of each slice, which
+ * the greedy merge walks by skipping straight to the set bits, so materials are only looked up for voxels which actually have a visible face.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class BinaryChunkMesher extends ChunkMesher
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The axis normal to each face (0 = x, 1 = y, 2 = z), ordered by the face's value.
+     */
+    private static final int[] NORMAL_AXIS = { 0, 0, 1, 1, 2, 2 };
+
+    /**
+     * The first axis of the plane each face lies on, ordered by the face's value.
+     */
+    private static final int[] U_AXIS = { 2, 2, 0, 0, 0, 0 };
+
+    /**
+     * The second axis of the plane each face lies on, ordered by the face's value.
+     */
+    private static final int[] V_AXIS = { 1, 1, 2, 2, 1, 1 };
+
+    /**
+     * The bits of a column which belong to the chunk, bit 0 and bit {@code LENGTH + 1} are the neighbouring chunks' voxels.
+     */
+    private static final int CHUNK_BITS = ( ( 1 << Chunk.LENGTH ) - 1 ) << 1;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The scratch arrays of each thread using this mesher.
+     */
+    private final ThreadLocal< Scratch > scratch = new ThreadLocal< Scratch >()
+    {
+
+        @Override
+        protected Scratch initialValue()
+        {
+            return new Scratch();
+        }
+
+    };
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void buildMesh( ChunkSnapshot snapshot, MeshBuffer mesh, int minY, int maxY )
+    {
+        Scratch s = scratch.get();
+
+        fillColumns( snapshot, s, minY, maxY );
+
+        for ( Face face : Face.VALUES )
+        {
+            int n = NORMAL_AXIS[ face.value ];
+            int v = V_AXIS[ face.value ];
+
+            // the y axis is either the column axis or the second axis of the plane, only the heights being meshed are kept along it
+            int minJ = v == 1 ? minY : 0;
+            int maxJ = v == 1 ? maxY : Chunk.LENGTH;
+            int heights = n == 1 ? ( ( ( 1 << maxY ) - 1 ) & ~( ( 1 << minY ) - 1 ) ) : -1;
+
+            findFaces( s.columns[ n ], s.rows, face, minJ, maxJ, heights );
+            mergeFaces( snapshot, mesh, s, face, minJ, maxJ );
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Packs the solidity of the snapshot into a column mask for each axis. Bit {@code t + 1} of a column is set if the voxel {@code t} along the axis is
+     * active, where {@code t} runs from -1 to {@code Chunk.LENGTH}. Only the layers from one below {@code minY} to {@code maxY} are read, which are all the
+     * faces of the section depend on.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param s
+     *         The scratch arrays.
+     * @param minY
+     *         The lowest local y coordinate being meshed.
+     * @param maxY
+     *         The local y coordinate above the highest layer being meshed.
+     *
+     * @since 26.10.17
+     */
+    private static void fillColumns( ChunkSnapshot snapshot, Scratch s, int minY, int maxY )
+    {
+        int[] columnsX = s.columns[ 0 ]; // indexed by z + ( y * LENGTH )
+        int[] columnsY = s.columns[ 1 ]; // indexed by x + ( z * LENGTH )
+        int[] columnsZ = s.columns[ 2 ]; // indexed by x + ( y * LENGTH )
+        byte[] voxels = snapshot.voxels;
+
+        Arrays.fill( columnsX, 0 );
+        Arrays.fill( columnsY, 0 );
+        Arrays.fill( columnsZ, 0 );
+
+        for ( int z = -1; z <= Chunk.LENGTH; z++ )
+        {
+            boolean insideZ = ( z >= 0 ) && ( z < Chunk.LENGTH );
+
+            for ( int y = minY - 1; y <= maxY; y++ )
+            {
+                boolean insideY = ( y >= 0 ) && ( y < Chunk.LENGTH );
+
+                if ( !insideZ && !insideY )
+                {
+                    continue; // an edge of the snapshot, which isn't captured
+                }
+
+                int index = ChunkSnapshot.getIndex( -1, y, z );
+
+                for ( int x = -1; x <= Chunk.LENGTH; x++, index++ )
+                {
+                    boolean insideX = ( x >= 0 ) && ( x < Chunk.LENGTH );
+
+                    if ( !Material.isActive( voxels[ index ] ) )
+                    {
+                        continue;
+                    }
+
+                    if ( insideY && insideZ )
+                    {
+                        columnsX[ z + ( y * Chunk.LENGTH ) ] |= 1 << ( x + 1 );
+                    }
+                    if ( insideX && insideZ )
+                    {
+                        columnsY[ x + ( z * Chunk.LENGTH ) ] |= 1 << ( y + 1 );
+                    }
+                    if ( insideX && insideY )
+                    {
+                        columnsZ[ x + ( y * Chunk.LENGTH ) ] |= 1 << ( z + 1 );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the visible faces of every column along the face's normal axis, and transposes them into the rows of each slice.
+     *
+     * @param columns
+     *         The column masks along the face's normal axis, indexed by {@code u + ( v * LENGTH )}.
+     * @param rows
+     *         The rows of faces, indexed by {@code j + ( d * LENGTH )}, bit {@code i} of a row is set if the voxel at {@code ( i, j )} in slice {@code d}
+     *         has a visible face.
+     * @param face
+     *         The face being found.
+     * @param minJ
+     *         The lowest row to fill.
+     * @param maxJ
+     *         The row above the highest row to fill.
+     * @param heights
+     *         The bits of the columns to keep, which limits y faces to the heights being meshed.
+     *
+     * @since 26.10.17
+     */
+    private static void findFaces( int[] columns, int[] rows, Face face, int minJ, int maxJ, int heights )
+    {
+        Arrays.fill( rows, 0 );
+
+        boolean positive = ( face.offsetX + face.offsetY + face.offsetZ ) > 0;
+
+        for ( int j = minJ; j < maxJ; j++ )
+        {
+            for ( int i = 0; i < Chunk.LENGTH; i++ )
+            {
+                int column = columns[ i + ( j * Chunk.LENGTH ) ];
+
+                // a voxel's face is visible if it's active and the voxel it faces isn't
+                int faces = column & ~( positive ? ( column >>> 1 ) : ( column << 1 ) );
+                faces = ( ( faces & CHUNK_BITS ) >>> 1 ) & heights;
+
+                while ( faces != 0 )
+                {
+                    int d = Integer.numberOfTrailingZeros( faces );
+                    faces &= faces - 1;
+
+                    rows[ j + ( d * Chunk.LENGTH ) ] |= 1 << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the faces in each slice into rectangles of a single material, in the same order as the GreedyChunkMesher.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param mesh
+     *         The buffer to which the vertices will be written.
+     * @param s
+     *         The scratch arrays, with the rows filled by {@link #findFaces(int[], int[], Face, int, int, int)}.
+     * @param face
+     *         The face being merged.
+     * @param minJ
+     *         The lowest row with faces.
+     * @param maxJ
+     *         The row above the highest row with faces.
+     *
+     * @since 26.10.17
+     */
+    private static void mergeFaces( ChunkSnapshot snapshot, MeshBuffer mesh, Scratch s, Face face, int minJ, int maxJ )
+    {
+        int[] rows = s.rows;
+        int[] position = s.position;
+        int[] size = s.size;
+
+        int n = NORMAL_AXIS[ face.value ];
+        int u = U_AXIS[ face.value ];
+        int v = V_AXIS[ face.value ];
+
+        for ( int d = 0; d < Chunk.LENGTH; d++ )
+        {
+            position[ n ] = d;
+            int slice = d * Chunk.LENGTH;
+
+            for ( int j = minJ; j < maxJ; j++ )
+            {
+                while ( rows[ slice + j ] != 0 )
+                {
+                    int row = rows[ slice + j ];
+                    int i = Integer.numberOfTrailingZeros( row );
+
+                    position[ u ] = i;
+                    position[ v ] = j;
+                    byte id = getMaterialId( snapshot, position );
+
+                    // grow the rectangle along the first axis, through the run of set bits with the same material
+                    int width = Integer.numberOfTrailingZeros( ~( row >>> i ) );
+                    width = matchingLength( snapshot, position, u, width, id );
+                    int span = ( ( 1 << width ) - 1 ) << i;
+
+                    // grow the rectangle along the second axis, as long as the entire row matches
+                    int height = 1;
+                    while ( ( j + height ) < maxJ && ( ( rows[ slice + j + height ] & span ) == span ) )
+                    {
+                        position[ u ] = i;
+                        position[ v ] = j + height;
+
+                        if ( matchingLength( snapshot, position, u, width, id ) != width )
+                        {
+                            break;
+                        }
+                        height++;
+                    }
+
+                    // clear the merged faces from the rows
+                    for ( int h = 0; h < height; h++ )
+                    {
+                        rows[ slice + j + h ] &= ~span;
+                    }
+
+                    position[ u ] = i;
+                    position[ v ] = j;
+                    size[ n ] = 1;
+                    size[ u ] = width;
+                    size[ v ] = height;
+
+                    mesh.addFace( face, position[ 0 ], position[ 1 ], position[ 2 ], size[ 0 ], size[ 1 ], size[ 2 ], id );
+                }
+            }
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Counts how many voxels along the first axis, starting at the position, are made of the material. The position is left where it started.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param position
+     *         The local position of the first voxel.
+     * @param u
+     *         The axis to count along.
+     * @param length
+     *         The most voxels to count.
+     * @param id
+     *         The byte id of the material.
+     *
+     * @return The number of voxels in a row made of the material.
+     *
+     * @since 26.10.17
+     */
+    private static int matchingLength( ChunkSnapshot snapshot, int[] position, int u, int length, byte id )
+    {
+        int start = position[ u ];
+        int count = 0;
+
+        while ( count < length )
+        {
+            position[ u ] = start + count;
+            if ( getMaterialId( snapshot, position ) != id )
+            {
+                break;
+            }
+            count++;
+        }
+
+        position[ u ] = start;
+        return count;
+    }
+
+    /**
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param position
+     *         The local position of the voxel.
+     *
+     * @return The byte id of the voxel's material.
+     *
+     * @since 26.10.17
+     */
+    private static byte getMaterialId( ChunkSnapshot snapshot, int[] position )
+    {
+        return snapshot.voxels[ ChunkSnapshot.getIndex( position[ 0 ], position[ 1 ], position[ 2 ] ) ];
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * The arrays reused by a single thread between rebuilds.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class Scratch
+    {
+
+        /**
+         * The solidity of the columns along each axis.
+         */
+        public final int[][] columns = new int[ 3 ][ Chunk.AREA ];
+
+        /**
+         * The visible faces of each row of each slice, for the face being meshed.
+         */
+        public final int[] rows = new int[ Chunk.AREA ];
+
+        /**
+         * The local position of the voxel being checked.
+         */
+        public final int[] position = new int[ 3 ];
+
+        /**
+         * The size of the quad being created.
+         */
+        public final int[] size = new int[ 3 ];
+
+    }
+
+}
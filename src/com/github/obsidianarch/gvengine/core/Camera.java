@@ -9,7 +9,7 @@ import static org.lwjgl.opengl.GL11.glTranslatef;
  * through, it comes in handy when an NPC needs to have "sight". When coupled with a {@code Controller}, an NPC can be moved and have it's own viewport.
  *
  * @author Austin
- * @version 14.03.30
+ * @version 26.10.17
  * @see Controller
  * @since 14.03.30
  */
@@ -285,6 +285,28 @@ public class Camera
         return roll;
     }
 
+    /**
+     * Works out the direction the camera is looking in, by undoing the rotations applied by {@link #lookThrough()}.
+     *
+     * @return The unit vector the camera is looking along, as {x, y, z}.
+     *
+     * @since 26.10.17
+     */
+    public float[] getDirection()
+    {
+        double p = Math.toRadians( pitch );
+        double yw = Math.toRadians( yaw );
+        double r = Math.toRadians( roll );
+
+        // the view looks down the negative z axis, undo the pitch, then the yaw, then the roll
+        double dX = Math.cos( p ) * Math.sin( yw );
+        double dY = -Math.sin( p );
+        double dZ = -Math.cos( p ) * Math.cos( yw );
+
+        return new float[] { ( float ) ( ( dX * Math.cos( r ) ) + ( dY * Math.sin( r ) ) ), ( float ) ( ( dY * Math.cos( r ) ) - ( dX * Math.sin( r ) ) ),
+                             ( float ) dZ };
+    }
+
     //
     // Actions
     //
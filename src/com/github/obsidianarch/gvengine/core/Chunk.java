@@ -1,8 +1,10 @@
 package com.github.obsidianarch.gvengine.core;
 
+import com.github.obsidianarch.gvengine.core.shaders.ChunkShader;
 import org.lwjgl.input.Keyboard;
 import org.lwjgl.opengl.GL11;
-import org.magicwerk.brownies.collections.primitive.FloatGapList;
+
+import java.util.Arrays;
 
 import static com.github.obsidianarch.gvengine.core.MathHelper.inRange;
 
@@ -10,7 +12,7 @@ import static com.github.obsidianarch.gvengine.core.MathHelper.inRange;
  * A container for a LENGTHxLENGTHxLENGTH selection of voxels.
  *
  * @author Austin
- * @version 14.04.12
+ * @version 26.10.17
  * @since 14.03.30
  */
 public class Chunk
@@ -35,14 +37,84 @@ public class Chunk
      */
     public static final int VOLUME = AREA * LENGTH;
 
+    /**
+     * The height of a section, the horizontal slabs of a chunk which are meshed separately.
+     */
+    public static final int SECTION_HEIGHT = 4;
+
+    /**
+     * The number of sections in a chunk.
+     */
+    public static final int SECTION_COUNT = LENGTH / SECTION_HEIGHT;
+
+    /**
+     * The dirty section bits when every section is dirty.
+     */
+    private static final int ALL_SECTIONS = ( 1 << SECTION_COUNT ) - 1;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The mesher used to build the mesh of every chunk.
+     */
+    private static volatile ChunkMesher mesher = new FaceChunkMesher();
+
+    /**
+     * The shader which draws packed chunk meshes, when this is null meshes are built in the standard format instead.
+     */
+    private static volatile ChunkShader shader = null;
+
     //
     // Fields
     //
 
     /**
-     * The voxels in this chunk.
+     * The voxels in this chunk, a RunLengthVoxelStorage while the chunk is in cold storage.
+     */
+    private VoxelStorage voxels;
+
+    /**
+     * If the voxels have been read or changed since the last idle check.
+     */
+    private boolean touched = true;
+
+    /**
+     * The time (in milliseconds) the voxels were last found to have been touched.
+     */
+    private long lastTouched = System.currentTimeMillis();
+
+    /**
+     * If the voxels have changed since they were generated or last saved by the ChunkCache, modified chunks are saved before they're evicted.
+     */
+    private boolean modified = false;
+
+    /**
+     * The time on the ChunkCache's clock when this chunk was last rendered or touched.
+     */
+    private long lastUsed;
+
+    /**
+     * The visible faces of each voxel, bit {@code face.value} is set if the voxel is active and the voxel touching that face isn't. Kept up to date by
+     * {@link #setMaterialAt(byte, int)}.
+     */
+    private final byte[] visibility = new byte[ VOLUME ];
+
+    /**
+     * The number of active (non-air) voxels in this chunk.
+     */
+    private int activeCount = 0;
+
+    /**
+     * The material which may fill this whole chunk, the chunk is uniform when {@code uniformCount} is {@code VOLUME}.
      */
-    private final byte[] voxels = new byte[ VOLUME ];
+    private byte uniformMaterial = 0;
+
+    /**
+     * The number of voxels made of {@code uniformMaterial}.
+     */
+    private int uniformCount = VOLUME;
 
     /**
      * The position of this chunk on the chunk grid.
@@ -64,6 +136,11 @@ public class Chunk
      */
     public final Region region;
 
+    /**
+     * If this chunk is a stand-in being generated off of the rendering thread, which never reads or changes the chunks around it.
+     */
+    private final boolean detached;
+
     /**
      * If the chunk has been loaded yet.
      */
@@ -75,9 +152,85 @@ public class Chunk
     private boolean rebuildScheduled = false;
 
     /**
-     * The VBO for this chunk.
+     * If a mesh has ever been requested for this chunk, edits to chunks which have never been meshed don't need to schedule rebuilds.
+     */
+    private boolean meshRequested = false;
+
+    /**
+     * The sections which have been edited since the last snapshot was taken, one bit per section.
+     */
+    private int dirtySections = 0;
+
+    /**
+     * The revision given to the last snapshot taken of this chunk.
+     */
+    private int snapshotRevision = 0;
+
+    /**
+     * The revision of the snapshot each section's newest built mesh came from, guarded by {@code meshLock}.
+     */
+    private final int[] builtRevisions = new int[ SECTION_COUNT ];
+
+    /**
+     * The meshes of each section which have been built but not yet sent to OpenGL, guarded by {@code meshLock}.
+     */
+    private final PendingMesh[] pendingMeshes = new PendingMesh[ SECTION_COUNT ];
+
+    /**
+     * Which faces of this chunk can see each other through it, as computed by {@link ChunkConnectivity}. Chunks which haven't been meshed are treated as
+     * completely open.
+     */
+    private volatile long connectivity = ChunkConnectivity.ALL;
+
+    /**
+     * The revision of the snapshot the connectivity graph came from, guarded by {@code meshLock}.
      */
-    private VertexBufferObject vbo = null;
+    private int connectivityRevision = 0;
+
+    /**
+     * Held while finished meshes are being handed over, so an older mesh never replaces a newer one.
+     */
+    private final Object meshLock = new Object();
+
+    /**
+     * The meshes drawn for each section of this chunk, which may be shared with other chunks, null if the section has no faces.
+     */
+    private final MeshCache.Entry[] meshes = new MeshCache.Entry[ SECTION_COUNT ];
+
+    /**
+     * The level of detail this chunk should be drawn at, 0 is full detail.
+     */
+    private int lodLevel = 0;
+
+    /**
+     * The level of detail of the last reduced mesh requested.
+     */
+    private int lodRequestedLevel = 0;
+
+    /**
+     * If the voxels have changed since the last reduced mesh was requested.
+     */
+    private boolean lodDirty = true;
+
+    /**
+     * A reduced mesh which has been built but not yet sent to OpenGL, guarded by {@code meshLock}.
+     */
+    private PendingMesh pendingLodMesh = null;
+
+    /**
+     * The revision of the snapshot the newest reduced mesh came from, guarded by {@code meshLock}.
+     */
+    private int lodBuiltRevision = 0;
+
+    /**
+     * The reduced mesh drawn for this chunk, which may be shared with other chunks.
+     */
+    private MeshCache.Entry lodMesh = null;
+
+    /**
+     * If the reduced mesh has been uploaded, it may still be null if it has no faces.
+     */
+    private boolean lodUploaded = false;
 
     //
     // Constructors
@@ -98,11 +251,61 @@ public class Chunk
      * @since 14.03.30
      */
     public Chunk( Region region, int x, int y, int z )
+    {
+        this( region, x, y, z, VoxelStorage.create() );
+    }
+
+    /**
+     * Creates a chunk at the given chunk coordinates, which stores its voxels in the given storage.
+     *
+     * @param region
+     *         The region this chunk is a part of.
+     * @param x
+     *         The chunk's x coordinate.
+     * @param y
+     *         The chunk's y coordinate.
+     * @param z
+     *         The chunk's z coordinate.
+     * @param storage
+     *         The storage for the chunk's voxels, every voxel in it must be air.
+     *
+     * @since 26.10.17
+     */
+    public Chunk( Region region, int x, int y, int z, VoxelStorage storage )
+    {
+        this( region, x, y, z, storage, false );
+    }
+
+    /**
+     * Creates a chunk at the given chunk coordinates, which may be detached from its neighbours. A detached chunk has the position of a chunk in the
+     * region, so generators see the right global coordinates, but it acts as though it had no neighbours, so it can be filled on another thread and copied
+     * into the real chunk afterwards.
+     *
+     * @param region
+     *         The region this chunk is a part of.
+     * @param x
+     *         The chunk's x coordinate.
+     * @param y
+     *         The chunk's y coordinate.
+     * @param z
+     *         The chunk's z coordinate.
+     * @param storage
+     *         The storage for the chunk's voxels, every voxel in it must be air.
+     * @param detached
+     *         If the chunk is detached from its neighbours.
+     *
+     * @since 26.10.17
+     */
+    public Chunk( Region region, int x, int y, int z, VoxelStorage storage, boolean detached )
     {
         this.region = region;
+        this.detached = detached;
         this.x = x;
         this.y = y;
         this.z = z;
+
+        voxels = storage;
+        lastUsed = getClock();
     }
 
     //
@@ -121,16 +324,23 @@ public class Chunk
     }
 
     /**
-     * Unloads a chunk from OpenGL by deleting the VertexBufferObject, however the chunk data (coordinates and voxel data) will remain in memory.
+     * Unloads a chunk from OpenGL by deleting the VertexBufferObjects, however the chunk data (coordinates and voxel data) will remain in memory.
      *
      * @since 14.03.30
      */
     public void unload()
     {
-        if ( vbo != null )
+        deleteMeshes();
+
+        synchronized ( meshLock )
         {
-            vbo.delete();
+            releasePendingMeshes(); // the meshes will never be uploaded
         }
+
+        lodRequestedLevel = 0;
+        lodDirty = true;
+
+        meshRequested = false;
         loaded = false;
     }
 
@@ -139,181 +349,1294 @@ public class Chunk
     //
 
     /**
-     * Builds the mesh for the chunk.
+     * Builds the mesh for the chunk and sends it to OpenGL immediately, this must be called from the OpenGL thread.
      *
      * @since 14.03.30
      */
     public void buildMesh()
     {
-        if ( vbo != null )
+        if ( skipMesh() )
         {
-            vbo.delete(); // remove the previous VBO
+            return; // there's nothing to see
         }
 
-        FloatGapList positions = new FloatGapList( VOLUME );
-        FloatGapList colors = new FloatGapList( VOLUME );
-        FloatGapList normals = new FloatGapList( VOLUME );
+        buildMeshData( takeSnapshot() );
+        uploadMesh();
+    }
 
-        for ( int i = 0; i < VOLUME; i++ )
+    /**
+     * Checks if this chunk needs a mesh at all. Empty chunks have nothing to mesh, and full chunks whose neighbours are also full have no visible faces. If
+     * no mesh is needed, any pending rebuilds are cancelled and the existing meshes are thrown away, this must be called from the OpenGL thread.
+     *
+     * @return If meshing can be skipped.
+     *
+     * @since 26.10.17
+     */
+    private boolean skipMesh()
+    {
+        if ( !isEmpty() && !isBuried() )
         {
-            // get the local positions from i
-            int x = MathHelper.getXPosition( i, LENGTH );
-            int y = MathHelper.getYPosition( i, LENGTH );
-            int z = MathHelper.getZPosition( i, LENGTH );
-
-            Voxel.createVoxel( positions, colors, normals, this, x, y, z );
+            return false;
         }
 
-        vbo = new VertexBufferObject( PositionSystem.XYZ, ColorSystem.RGB, NormalSystem.ENABLED, positions, colors, normals );
-
-        vbo.validate(); // manually validate the VBO
         rebuildScheduled = false;
+        meshRequested = true;
+        dirtySections = 0;
+        lodDirty = false;
+        lodRequestedLevel = lodLevel;
+
+        synchronized ( meshLock )
+        {
+            // meshes still being built are older than this, so they'll be discarded when they finish
+            int revision = ++snapshotRevision;
+
+            Arrays.fill( builtRevisions, revision );
+            lodBuiltRevision = revision;
+            releasePendingMeshes();
+
+            connectivityRevision = revision;
+            connectivity = isEmpty() ? ChunkConnectivity.ALL : 0;
+        }
+
+        deleteMeshes();
+        return true;
     }
 
     /**
-     * Renders the VertexBufferObject for this chunk.
+     * Releases this chunk's references to its meshes, deleting the VBOs no other chunk is drawing. This must be called from the OpenGL thread.
      *
-     * @since 14.03.30
+     * @since 26.10.17
      */
-    public void render()
+    private void deleteMeshes()
     {
-        if ( vbo == null )
+        for ( int section = 0; section < SECTION_COUNT; section++ )
         {
-            return; // let's not get errors
+            MeshCache.release( meshes[ section ] );
+            meshes[ section ] = null;
         }
 
-        if ( Keyboard.isKeyDown( Keyboard.KEY_1 ) )
-        {
-            vbo.setGLMode( GL11.GL_POINTS );
-        }
-        else if ( Keyboard.isKeyDown( Keyboard.KEY_2 ) )
+        MeshCache.release( lodMesh );
+        lodMesh = null;
+        lodUploaded = false;
+    }
+
+    /**
+     * Releases the meshes which have been built but not yet uploaded, {@code meshLock} must be held.
+     *
+     * @since 26.10.17
+     */
+    private void releasePendingMeshes()
+    {
+        for ( int section = 0; section < SECTION_COUNT; section++ )
         {
-            vbo.setGLMode( GL11.GL_LINES );
+            if ( pendingMeshes[ section ] != null )
+            {
+                pendingMeshes[ section ].release();
+                pendingMeshes[ section ] = null;
+            }
         }
-        else
+
+        if ( pendingLodMesh != null )
         {
-            vbo.setGLMode( GL11.GL_TRIANGLES );
+            pendingLodMesh.release();
+            pendingLodMesh = null;
         }
-
-        vbo.render();
     }
 
-    //
-    // Setters
-    //
-
     /**
-     * Sets the voxel material at the given index by the material's byte id.
+     * Copies this chunk and the border of its neighbours into a snapshot for meshing, this must be called from the thread which edits the chunks. Only the
+     * sections which have been edited since the last snapshot (or every section, if the chunk has never been meshed) are meshed from it. Any edits made
+     * after the snapshot is taken will need another rebuild.
      *
-     * @param b
-     *         The byte id of the material.
-     * @param index
-     *         The index in the array.
+     * @return The snapshot of this chunk, which is released by {@link #buildMeshData(ChunkSnapshot)}.
      *
-     * @since 14.03.30
+     * @since 26.10.17
      */
-    public void setMaterialAt( byte b, int index )
+    public ChunkSnapshot takeSnapshot()
     {
-        byte prev = voxels[ index ];
-
-        if ( prev == b )
+        if ( !meshRequested || ( dirtySections == 0 ) )
         {
-            return;
-            // no point in setting it to the same thing
-            // THIS IS USEFUL (not necassarily for speed in the array setting method, though)
-            // Scheduling a rebuild is completely useless and just wastes time and resources
-            // if the block at this index has not been changed, this was originally implemented
-            // in the if statement below, however implementing it here makes allows for a tiny
-            // tiny performance boost as we don't have to set an element in the array
+            dirtySections = ALL_SECTIONS; // there's no mesh yet, or the rebuild wasn't asked for by an edit
         }
 
-        voxels[ index ] = b;
+        rebuildScheduled = false;
+        meshRequested = true;
 
-        if ( vbo == null )
-        {
-            return; // let's try to avoid some errors
-        }
+        ChunkSnapshot snapshot = ChunkSnapshot.acquire( this );
+        snapshot.revision = ++snapshotRevision;
+        snapshot.sections = dirtySections;
+        snapshot.lodLevel = 0;
 
-        if ( !rebuildScheduled )
-        {
-            Scheduler.enqueueEvent( "buildMesh", this );
-            rebuildScheduled = true;
-        }
+        dirtySections = 0;
+        return snapshot;
     }
 
     /**
-     * Sets the voxel material at the given index.
+     * Takes a snapshot of this chunk for building a reduced detail mesh, this must be called from the thread which edits the chunks.
      *
-     * @param mat
-     *         The new material.
-     * @param index
-     *         The index in the array.
+     * @param level
+     *         The level of detail to build, from 1 to {@code ChunkLod.MAX_LEVEL}.
      *
-     * @since 14.03.30
+     * @return The snapshot of this chunk, which is released by {@link #buildMeshData(ChunkSnapshot)}.
+     *
+     * @since 26.10.17
      */
-    public void setMaterialAt( Material mat, int index )
+    public ChunkSnapshot takeLodSnapshot( int level )
     {
-        setMaterialAt( mat.byteID, index );
+        lodRequestedLevel = level;
+        lodDirty = false;
+
+        ChunkSnapshot snapshot = ChunkSnapshot.acquire( this );
+        snapshot.revision = ++snapshotRevision;
+        snapshot.sections = 0;
+        snapshot.lodLevel = level;
+        return snapshot;
     }
 
     /**
-     * Sets the voxel material at the given local position.
+     * Builds the mesh data of the snapshot's sections without touching OpenGL or the chunk's voxels, so this may be called from any thread. The meshes are
+     * sent to OpenGL the next time the chunk is rendered. The chunk's connectivity graph is also updated from the snapshot.
      *
-     * @param mat
-     *         The new material.
-     * @param x
-     *         The local x position.
-     * @param y
-     *         The local y position.
-     * @param z
-     *         The local z position.
+     * @param snapshot
+     *         The snapshot of this chunk, it is released once the meshes have been built.
      *
-     * @since 14.03.30
+     * @since 26.10.17
      */
-    public void setMaterialAt( Material mat, int x, int y, int z )
+    public void buildMeshData( ChunkSnapshot snapshot )
     {
-        setMaterialAt( mat.byteID, x, y, z );
+        ChunkVertexFormat format = shader == null ? ChunkVertexFormat.STANDARD : ChunkVertexFormat.PACKED;
+        ChunkMesher chunkMesher = mesher;
+
+        int revision = snapshot.revision;
+
+        long graph = ChunkConnectivity.compute( snapshot );
+        synchronized ( meshLock )
+        {
+            if ( revision > connectivityRevision )
+            {
+                connectivity = graph;
+                connectivityRevision = revision;
+            }
+        }
+
+        if ( snapshot.lodLevel > 0 )
+        {
+            PendingMesh mesh = new PendingMesh( MeshCache.createKey( snapshot, 0, LENGTH, format, null ) );
+            if ( !MeshCache.contains( mesh.key ) )
+            {
+                mesh.buffer = MeshBuffer.acquire( format );
+                ChunkLod.buildMesh( snapshot, snapshot.lodLevel, mesh.buffer );
+            }
+
+            synchronized ( meshLock )
+            {
+                if ( revision < lodBuiltRevision )
+                {
+                    mesh.release(); // a mesh from a newer snapshot finished first
+                }
+                else
+                {
+                    lodBuiltRevision = revision;
+
+                    if ( pendingLodMesh != null )
+                    {
+                        pendingLodMesh.release();
+                    }
+                    pendingLodMesh = mesh;
+                }
+            }
+        }
+
+        for ( int section = 0; section < SECTION_COUNT; section++ )
+        {
+            if ( ( snapshot.sections & ( 1 << section ) ) == 0 )
+            {
+                continue; // this section hasn't changed
+            }
+
+            int minY = section * SECTION_HEIGHT;
+            int maxY = minY + SECTION_HEIGHT;
+
+            // an identical section has already been uploaded by some chunk, so it doesn't need to be meshed again
+            PendingMesh mesh = new PendingMesh( MeshCache.createKey( snapshot, minY, maxY, format, chunkMesher ) );
+            if ( !MeshCache.contains( mesh.key ) )
+            {
+                mesh.buffer = MeshBuffer.acquire( format );
+                mesh.buffer.setOrigin( 0, minY, 0 ); // sections are drawn relative to their lowest layer
+                chunkMesher.buildMesh( snapshot, mesh.buffer, minY, maxY );
+            }
+
+            synchronized ( meshLock )
+            {
+                if ( revision < builtRevisions[ section ] )
+                {
+                    mesh.release(); // a mesh from a newer snapshot finished first
+                    continue;
+                }
+                builtRevisions[ section ] = revision;
+
+                // replace any mesh which hasn't been uploaded yet, it's already out of date
+                if ( pendingMeshes[ section ] != null )
+                {
+                    pendingMeshes[ section ].release();
+                }
+                pendingMeshes[ section ] = mesh;
+            }
+        }
+
+        snapshot.release();
     }
 
     /**
-     * Sets the voxel material at the given local position by the material's byte id.
+     * Sends the most recently built section meshes to OpenGL, this must be called from the OpenGL thread. Meshes which are already cached are shared
+     * rather than uploaded again.
      *
-     * @param b
-     *         The byte id of the material.
-     * @param x
-     *         The local x position.
-     * @param y
-     *         The local y position.
-     * @param z
-     *         The local z position.
+     * @return If there was a mesh to upload.
      *
-     * @since 14.03.30
+     * @since 26.10.17
      */
-    public void setMaterialAt( byte b, int x, int y, int z )
+    public boolean uploadMesh()
     {
-        // the voxel is out of bounds, divert the set material to the chunk containing the voxel
-        if ( !inRange( x, 0, LENGTH ) || !inRange( y, 0, LENGTH ) || !inRange( z, 0, LENGTH ) )
+        boolean uploaded = false;
+
+        for ( int section = 0; section < SECTION_COUNT; section++ )
         {
-            Object[] data = grabExternalVoxelData( x, y, z );
+            PendingMesh mesh;
+            synchronized ( meshLock )
+            {
+                mesh = pendingMeshes[ section ];
+                pendingMeshes[ section ] = null;
+            }
 
-            Chunk c = ( Chunk ) data[ 0 ]; // get the chunk which contains the voxel
+            if ( mesh == null )
+            {
+                continue; // nothing new has been built for this section
+            }
 
-            if ( c == null )
+            if ( !mesh.isAvailable() )
             {
-                return; // we can't do anything with this data
+                scheduleRebuild( 1 << section ); // the shared mesh was deleted before it could be used
+                continue;
+            }
+
+            MeshCache.Entry previous = meshes[ section ];
+            meshes[ section ] = upload( mesh );
+            MeshCache.release( previous ); // released after, in case the section was replaced by the mesh it already had
+
+            uploaded = true;
+        }
+
+        PendingMesh pendingLod;
+        synchronized ( meshLock )
+        {
+            pendingLod = pendingLodMesh;
+            pendingLodMesh = null;
+        }
+
+        if ( pendingLod != null )
+        {
+            if ( pendingLod.isAvailable() )
+            {
+                MeshCache.Entry previous = lodMesh;
+                lodMesh = upload( pendingLod );
+                lodUploaded = true;
+                MeshCache.release( previous );
+
+                uploaded = true;
+            }
+            else
+            {
+                lodDirty = true; // the shared mesh was deleted before it could be used
+            }
+        }
+
+        return uploaded;
+    }
+
+    /**
+     * Takes a reference to the cached copy of a mesh, or sends the mesh to a new VBO and adds it to the cache. The mesh's buffer is released.
+     *
+     * @param mesh
+     *         The mesh to upload.
+     *
+     * @return The mesh's entry in the cache, or null if the mesh has no faces.
+     *
+     * @since 26.10.17
+     */
+    private static MeshCache.Entry upload( PendingMesh mesh )
+    {
+        MeshCache.Entry entry = mesh.key == null ? null : MeshCache.acquire( mesh.key );
+
+        if ( entry != null )
+        {
+            mesh.release(); // some chunk already uploaded an identical mesh
+            return entry;
+        }
+
+        MeshBuffer buffer = mesh.buffer;
+        if ( buffer.getVertexCount() == 0 )
+        {
+            mesh.release();
+            return null; // there's nothing to draw
+        }
+
+        VertexBufferObject vbo = new VertexBufferObject( PositionSystem.XYZ, ColorSystem.RGB, NormalSystem.ENABLED );
+        vbo.setQuads( true ); // meshes store four vertices per face
+
+        // the mesh is already interleaved, so it's sent straight to OpenGL
+        if ( buffer.getFormat() == ChunkVertexFormat.PACKED )
+        {
+            vbo.setPackedData( buffer.getData(), buffer.getVertexCount() );
+        }
+        else
+        {
+            vbo.setInterleavedData( buffer.getData(), buffer.getVertexCount() );
+        }
+        vbo.validate(); // manually validate the VBO
+
+        MeshCache.Key key = mesh.key;
+        mesh.release(); // OpenGL has copied the data, the buffer can be used for the next mesh
+        return MeshCache.add( key, vbo );
+    }
+
+    /**
+     * Schedules a rebuild of every section of this chunk's mesh, unless one is already scheduled. When the MeshingPool is enabled, the snapshot is
+     * taken and submitted to the pool the next time the chunk is rendered, so every edit made during a frame shares one rebuild. Otherwise the
+     * Scheduler builds the mesh on the rendering thread.
+     *
+     * @since 26.10.17
+     */
+    public void scheduleRebuild()
+    {
+        scheduleRebuild( ALL_SECTIONS );
+    }
+
+    /**
+     * Finds the sections whose meshes can change when a voxel at the height changes. The voxel's faces can hide or reveal the faces of the voxels touching
+     * it, which may be in the sections above or below.
+     *
+     * @param y
+     *         The local y coordinate of the voxel.
+     *
+     * @return The sections, one bit per section.
+     *
+     * @since 26.10.17
+     */
+    private static int getAffectedSections( int y )
+    {
+        int section = y / SECTION_HEIGHT;
+        int sections = 1 << section;
+
+        if ( ( ( y % SECTION_HEIGHT ) == 0 ) && ( section > 0 ) )
+        {
+            sections |= 1 << ( section - 1 );
+        }
+        if ( ( ( y % SECTION_HEIGHT ) == ( SECTION_HEIGHT - 1 ) ) && ( section < ( SECTION_COUNT - 1 ) ) )
+        {
+            sections |= 1 << ( section + 1 );
+        }
+
+        return sections;
+    }
+
+    /**
+     * Finds the sections of the neighbouring chunks whose meshes can change when a voxel changes. A voxel on the border of this chunk hides or reveals the
+     * face of the voxel touching it in the neighbouring chunk, which is in the neighbour's section at the same height, or in the top or bottom section of
+     * the neighbour below or above.
+     *
+     * @param x
+     *         The local x coordinate of the voxel.
+     * @param y
+     *         The local y coordinate of the voxel.
+     * @param z
+     *         The local z coordinate of the voxel.
+     *
+     * @return The sections, {@link #SECTION_COUNT} bits per face of this chunk, ordered by the face's value. Zero if the voxel isn't on the border.
+     *
+     * @since 26.10.17
+     */
+    private static int getBorderSections( int x, int y, int z )
+    {
+        int section = 1 << ( y / SECTION_HEIGHT );
+        int sections = 0;
+
+        if ( x == 0 )
+        {
+            sections |= section << ( Face.LEFT.value * SECTION_COUNT );
+        }
+        else if ( x == ( LENGTH - 1 ) )
+        {
+            sections |= section << ( Face.RIGHT.value * SECTION_COUNT );
+        }
+
+        if ( y == 0 )
+        {
+            sections |= ( 1 << ( SECTION_COUNT - 1 ) ) << ( Face.BOTTOM.value * SECTION_COUNT );
+        }
+        else if ( y == ( LENGTH - 1 ) )
+        {
+            sections |= 1 << ( Face.TOP.value * SECTION_COUNT );
+        }
+
+        if ( z == 0 )
+        {
+            sections |= section << ( Face.FRONT.value * SECTION_COUNT );
+        }
+        else if ( z == ( LENGTH - 1 ) )
+        {
+            sections |= section << ( Face.BACK.value * SECTION_COUNT );
+        }
+
+        return sections;
+    }
+
+    /**
+     * Marks the sections of the neighbouring chunks touching an edit as dirty, so the faces along the seam are rebuilt with the edit instead of waiting for
+     * a full rebuild of the region. Neighbours which haven't been meshed yet are skipped, and the sections of a neighbour which already has a rebuild
+     * pending are added to that rebuild.
+     *
+     * @param borders
+     *         The sections of the neighbouring chunks, as returned by {@link #getBorderSections(int, int, int)}.
+     *
+     * @since 26.10.17
+     */
+    private void scheduleNeighbourRebuilds( int borders )
+    {
+        if ( borders == 0 )
+        {
+            return;
+        }
+
+        for ( Face face : Face.VALUES )
+        {
+            int sections = ( borders >>> ( face.value * SECTION_COUNT ) ) & ALL_SECTIONS;
+            if ( sections == 0 )
+            {
+                continue;
+            }
+
+            Chunk neighbour = getNeighbour( face.offsetX, face.offsetY, face.offsetZ );
+            if ( ( neighbour != null ) && neighbour.meshRequested )
+            {
+                neighbour.scheduleRebuild( sections );
+            }
+        }
+    }
+
+    /**
+     * Marks sections of this chunk as dirty and schedules a rebuild, unless one is already scheduled.
+     *
+     * @param sections
+     *         The sections to rebuild, one bit per section.
+     *
+     * @since 26.10.17
+     */
+    private void scheduleRebuild( int sections )
+    {
+        dirtySections |= sections;
+
+        if ( rebuildScheduled )
+        {
+            return; // the pending rebuild will include every change made so far
+        }
+
+        rebuildScheduled = true;
+        meshRequested = true;
+
+        if ( !MeshingPool.isEnabled() )
+        {
+            Scheduler.enqueueEvent( "buildMesh", this );
+        }
+    }
+
+    /**
+     * Renders the VertexBufferObject for this chunk. Packed meshes enable the chunk shader and are moved into place by its chunk offset, the shader is left
+     * enabled so the following chunks don't have to enable it again.
+     *
+     * @since 14.03.30
+     */
+    public void render()
+    {
+        lastUsed = getClock();
+
+        boolean lodNeeded = ( lodLevel > 0 ) && ( lodDirty || ( lodRequestedLevel != lodLevel ) );
+
+        if ( ( rebuildScheduled || lodNeeded ) && skipMesh() )
+        {
+            return; // nothing needs to be drawn
+        }
+
+        if ( isEmpty() )
+        {
+            return; // there's no mesh, and no reason to bind anything
+        }
+
+        if ( rebuildScheduled && MeshingPool.isEnabled() )
+        {
+            MeshingPool.submit( this, takeSnapshot() ); // hand the rebuild to the worker threads
+        }
+
+        if ( lodNeeded )
+        {
+            ChunkSnapshot snapshot = takeLodSnapshot( lodLevel );
+
+            if ( MeshingPool.isEnabled() )
+            {
+                MeshingPool.submit( this, snapshot );
+            }
+            else
+            {
+                buildMeshData( snapshot ); // reduced meshes are small enough to build right away
+            }
+        }
+
+        uploadMesh(); // send the meshes to OpenGL if new ones have been built
+
+        int glMode = GL11.GL_TRIANGLES;
+        if ( Keyboard.isKeyDown( Keyboard.KEY_1 ) )
+        {
+            glMode = GL11.GL_POINTS;
+        }
+        else if ( Keyboard.isKeyDown( Keyboard.KEY_2 ) )
+        {
+            glMode = GL11.GL_LINES;
+        }
+
+        // the reduced mesh replaces every section, the previous level is drawn until the requested one is ready
+        if ( ( lodLevel > 0 ) && lodUploaded )
+        {
+            if ( lodMesh != null )
+            {
+                draw( lodMesh.vbo, glMode, 0 );
+            }
+            return;
+        }
+
+        for ( int section = 0; section < SECTION_COUNT; section++ )
+        {
+            if ( meshes[ section ] != null )
+            {
+                draw( meshes[ section ].vbo, glMode, section * SECTION_HEIGHT );
+            }
+        }
+    }
+
+    /**
+     * Draws one of this chunk's VBOs, enabling or disabling the chunk shader for the VBO's vertex format. Meshes are relative to their section, so they're
+     * moved into place by the chunk shader's offset, or by translating the modelview matrix for standard meshes.
+     *
+     * @param vbo
+     *         The VBO to draw.
+     * @param glMode
+     *         The method OpenGL will render the vertices.
+     * @param offsetY
+     *         The local y coordinate the mesh is relative to.
+     *
+     * @since 26.10.17
+     */
+    private void draw( VertexBufferObject vbo, int glMode, int offsetY )
+    {
+        ChunkShader chunkShader = shader;
+
+        vbo.setGLMode( glMode );
+
+        if ( vbo.isPacked() )
+        {
+            if ( chunkShader == null )
+            {
+                return; // the mesh was built for a shader which has since been removed, it can't be drawn until it's rebuilt
+            }
+
+            chunkShader.enable();
+            chunkShader.setChunkOffset( getGlobalX(), getGlobalY() + offsetY, getGlobalZ() );
+            vbo.render();
+            return;
+        }
+
+        if ( chunkShader != null )
+        {
+            chunkShader.disable(); // standard meshes already have their colors
+        }
+
+        GL11.glPushMatrix();
+        GL11.glTranslatef( getGlobalX(), getGlobalY() + offsetY, getGlobalZ() );
+        vbo.render();
+        GL11.glPopMatrix();
+    }
+
+    //
+    // Setters
+    //
+
+    /**
+     * Sets the level of detail this chunk is drawn at, a reduced mesh for the level is built the next time the chunk is rendered.
+     *
+     * @param level
+     *         The level of detail, 0 is full detail and {@code ChunkLod.MAX_LEVEL} is the most reduced.
+     *
+     * @since 26.10.17
+     */
+    public void setLodLevel( int level )
+    {
+        lodLevel = level;
+    }
+
+    /**
+     * Sets the voxel material at the given index by the material's byte id.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param index
+     *         The index in the array.
+     *
+     * @since 14.03.30
+     */
+    public void setMaterialAt( byte b, int index )
+    {
+        touch();
+        byte prev = voxels.get( index );
+
+        if ( prev == b )
+        {
+            return;
+            // no point in setting it to the same thing
+            // THIS IS USEFUL (not necassarily for speed in the array setting method, though)
+            // Scheduling a rebuild is completely useless and just wastes time and resources
+            // if the block at this index has not been changed, this was originally implemented
+            // in the if statement below, however implementing it here makes allows for a tiny
+            // tiny performance boost as we don't have to set an element in the array
+        }
+
+        assert !isCompressed() : "cold storage is decompressed by touch() before it's changed";
+        voxels.set( index, b );
+        modified = true;
+        updateVisibility( index );
+        updateCounts( prev, b );
+        lodDirty = true;
+
+        int vY = ( index / LENGTH ) % LENGTH;
+        scheduleNeighbourRebuilds( getBorderSections( index % LENGTH, vY, index / AREA ) );
+
+        if ( !meshRequested )
+        {
+            return; // the chunk hasn't been meshed yet, so there's nothing to rebuild
+        }
+
+        scheduleRebuild( getAffectedSections( vY ) );
+    }
+
+    /**
+     * Sets the voxel material at the given index.
+     *
+     * @param mat
+     *         The new material.
+     * @param index
+     *         The index in the array.
+     *
+     * @since 14.03.30
+     */
+    public void setMaterialAt( Material mat, int index )
+    {
+        setMaterialAt( mat.byteID, index );
+    }
+
+    /**
+     * Sets the voxel material at the given local position.
+     *
+     * @param mat
+     *         The new material.
+     * @param x
+     *         The local x position.
+     * @param y
+     *         The local y position.
+     * @param z
+     *         The local z position.
+     *
+     * @since 14.03.30
+     */
+    public void setMaterialAt( Material mat, int x, int y, int z )
+    {
+        setMaterialAt( mat.byteID, x, y, z );
+    }
+
+    /**
+     * Sets the voxel material at the given local position by the material's byte id.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param x
+     *         The local x position.
+     * @param y
+     *         The local y position.
+     * @param z
+     *         The local z position.
+     *
+     * @since 14.03.30
+     */
+    public void setMaterialAt( byte b, int x, int y, int z )
+    {
+        // the voxel is out of bounds, divert the set material to the chunk containing the voxel
+        if ( !inRange( x, 0, LENGTH ) || !inRange( y, 0, LENGTH ) || !inRange( z, 0, LENGTH ) )
+        {
+            Object[] data = grabExternalVoxelData( x, y, z );
+
+            Chunk c = ( Chunk ) data[ 0 ]; // get the chunk which contains the voxel
+
+            if ( c == null )
+            {
+                return; // we can't do anything with this data
+            }
+
+            // get the local coordinates
+            x = ( int ) data[ 1 ];
+            y = ( int ) data[ 2 ];
+            z = ( int ) data[ 3 ];
+
+            // set the material in the correct chunk
+            c.setMaterialAt( b, x, y, z );
+            return;
+        }
+
+        setMaterialAt( b, x + ( y * LENGTH ) + ( z * ( AREA ) ) );
+    }
+
+    //
+    // Bulk Edits
+    //
+
+    /**
+     * Replaces every voxel in this chunk at once, which is much faster than setting them one at a time.
+     *
+     * @param data
+     *         The byte ids of the new materials, indexed the same as the voxels.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int setVoxels( byte[] data )
+    {
+        return setVoxels( data, null );
+    }
+
+    /**
+     * Replaces the voxels selected by a mask at once. The voxels are written in a single copy, then the counters and visibility masks of this chunk (and
+     * the masks of the neighbouring chunks facing any changed border) are recalculated, and a single rebuild of the changed sections is scheduled.
+     *
+     * @param data
+     *         The byte ids of the new materials, indexed the same as the voxels.
+     * @param mask
+     *         Which voxels to replace, indexed the same as the voxels, or null to replace all of them.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int setVoxels( byte[] data, boolean[] mask )
+    {
+        touch();
+
+        byte[] current = new byte[ VOLUME ];
+        voxels.copyTo( 0, current, 0, VOLUME );
+
+        int changed = 0;
+        int sections = 0;
+        int borders = 0; // the sections of the neighbouring chunks touching a changed voxel
+
+        for ( int index = 0; index < VOLUME; index++ )
+        {
+            if ( ( ( mask != null ) && !mask[ index ] ) || ( current[ index ] == data[ index ] ) )
+            {
+                continue;
+            }
+
+            current[ index ] = data[ index ];
+            changed++;
+
+            int vX = index % LENGTH;
+            int vY = ( index / LENGTH ) % LENGTH;
+            int vZ = index / AREA;
+
+            sections |= getAffectedSections( vY );
+            borders |= getBorderSections( vX, vY, vZ );
+        }
+
+        if ( changed == 0 )
+        {
+            return 0;
+        }
+
+        assert !isCompressed() : "cold storage is decompressed by touch() before it's changed";
+        voxels.copyFrom( 0, current, 0, VOLUME );
+        modified = true;
+        lodDirty = true;
+
+        recount();
+        updateVisibility();
+
+        for ( Face face : Face.VALUES )
+        {
+            if ( ( ( borders >>> ( face.value * SECTION_COUNT ) ) & ALL_SECTIONS ) == 0 )
+            {
+                continue;
+            }
+
+            Chunk neighbour = getNeighbour( face.offsetX, face.offsetY, face.offsetZ );
+            if ( neighbour != null )
+            {
+                neighbour.updateVisibility();
+            }
+        }
+
+        if ( meshRequested )
+        {
+            scheduleRebuild( sections );
+        }
+        scheduleNeighbourRebuilds( borders );
+
+        return changed;
+    }
+
+    /**
+     * Fills a box of voxels with a material, the box may reach outside of the chunk, only the part inside of it is filled.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param minX
+     *         The lowest local x coordinate of the box (inclusive).
+     * @param minY
+     *         The lowest local y coordinate of the box (inclusive).
+     * @param minZ
+     *         The lowest local z coordinate of the box (inclusive).
+     * @param maxX
+     *         The highest local x coordinate of the box (exclusive).
+     * @param maxY
+     *         The highest local y coordinate of the box (exclusive).
+     * @param maxZ
+     *         The highest local z coordinate of the box (exclusive).
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int fillBox( byte b, int minX, int minY, int minZ, int maxX, int maxY, int maxZ )
+    {
+        minX = Math.max( minX, 0 );
+        minY = Math.max( minY, 0 );
+        minZ = Math.max( minZ, 0 );
+        maxX = Math.min( maxX, LENGTH );
+        maxY = Math.min( maxY, LENGTH );
+        maxZ = Math.min( maxZ, LENGTH );
+
+        if ( ( minX >= maxX ) || ( minY >= maxY ) || ( minZ >= maxZ ) )
+        {
+            return 0; // the box doesn't touch this chunk
+        }
+
+        byte[] data = new byte[ VOLUME ];
+        boolean[] mask = new boolean[ VOLUME ];
+
+        for ( int vZ = minZ; vZ < maxZ; vZ++ )
+        {
+            for ( int vY = minY; vY < maxY; vY++ )
+            {
+                int row = ( vY * LENGTH ) + ( vZ * AREA );
+
+                Arrays.fill( data, row + minX, row + maxX, b );
+                Arrays.fill( mask, row + minX, row + maxX, true );
+            }
+        }
+
+        return setVoxels( data, mask );
+    }
+
+    /**
+     * Fills a sphere of voxels with a material, the sphere may reach outside of the chunk, only the part inside of it is filled. A voxel is inside of the
+     * sphere if its center is.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param centerX
+     *         The local x coordinate of the sphere's center.
+     * @param centerY
+     *         The local y coordinate of the sphere's center.
+     * @param centerZ
+     *         The local z coordinate of the sphere's center.
+     * @param radius
+     *         The radius of the sphere, in voxels.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int fillSphere( byte b, double centerX, double centerY, double centerZ, double radius )
+    {
+        int minX = Math.max( ( int ) Math.floor( centerX - radius ), 0 );
+        int minY = Math.max( ( int ) Math.floor( centerY - radius ), 0 );
+        int minZ = Math.max( ( int ) Math.floor( centerZ - radius ), 0 );
+        int maxX = Math.min( ( int ) Math.ceil( centerX + radius ) + 1, LENGTH );
+        int maxY = Math.min( ( int ) Math.ceil( centerY + radius ) + 1, LENGTH );
+        int maxZ = Math.min( ( int ) Math.ceil( centerZ + radius ) + 1, LENGTH );
+
+        if ( ( minX >= maxX ) || ( minY >= maxY ) || ( minZ >= maxZ ) )
+        {
+            return 0; // the sphere doesn't touch this chunk
+        }
+
+        byte[] data = new byte[ VOLUME ];
+        boolean[] mask = new boolean[ VOLUME ];
+        double radiusSquared = radius * radius;
+        boolean touched = false;
+
+        for ( int vZ = minZ; vZ < maxZ; vZ++ )
+        {
+            double dZ = ( vZ + 0.5 ) - centerZ;
+
+            for ( int vY = minY; vY < maxY; vY++ )
+            {
+                double dY = ( vY + 0.5 ) - centerY;
+
+                for ( int vX = minX; vX < maxX; vX++ )
+                {
+                    double dX = ( vX + 0.5 ) - centerX;
+
+                    if ( ( ( dX * dX ) + ( dY * dY ) + ( dZ * dZ ) ) <= radiusSquared )
+                    {
+                        int index = vX + ( vY * LENGTH ) + ( vZ * AREA );
+                        data[ index ] = b;
+                        mask[ index ] = true;
+                        touched = true;
+                    }
+                }
+            }
+        }
+
+        return touched ? setVoxels( data, mask ) : 0;
+    }
+
+    /**
+     * Replaces every voxel of one material with another.
+     *
+     * @param from
+     *         The byte id of the material to replace.
+     * @param to
+     *         The byte id of the material to replace it with.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int replaceMaterial( byte from, byte to )
+    {
+        if ( from == to )
+        {
+            return 0;
+        }
+
+        if ( isUniform() )
+        {
+            if ( uniformMaterial != from )
+            {
+                return 0; // the material isn't in this chunk
+            }
+
+            byte[] data = new byte[ VOLUME ];
+            Arrays.fill( data, to );
+            return setVoxels( data );
+        }
+
+        byte[] data = getVoxels();
+        boolean found = false;
+
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            if ( data[ i ] == from )
+            {
+                data[ i ] = to;
+                found = true;
+            }
+        }
+
+        return found ? setVoxels( data ) : 0;
+    }
+
+    //
+    // Cold Storage
+    //
+
+    /**
+     * Moves the voxels into cold storage, compressing them into runs of the same material. The chunk can still be read and meshed, and is decompressed
+     * the next time it's changed or its materials are asked for. Nothing is done if the runs wouldn't be smaller than the current storage.
+     *
+     * @return If the voxels were compressed.
+     *
+     * @since 26.10.17
+     */
+    public boolean compress()
+    {
+        if ( isCompressed() || !voxels.isCompressible() )
+        {
+            return false;
+        }
+
+        if ( ( RunLengthVoxelStorage.countRuns( voxels ) * 3 ) >= voxels.getMemoryUsage() )
+        {
+            return false; // too noisy to be worth compressing
+        }
+
+        voxels = new RunLengthVoxelStorage( voxels );
+        return true;
+    }
+
+    /**
+     * Moves the voxels into cold storage if they haven't been touched for {@code RunLengthVoxelStorage.ColdDelay} seconds. This should be called every so
+     * often for every loaded chunk, a chunk is only known to be untouched once it has been checked without being touched in between.
+     *
+     * @param now
+     *         The current time, in milliseconds.
+     *
+     * @return If the voxels were compressed.
+     *
+     * @since 26.10.17
+     */
+    public boolean compressIfIdle( long now )
+    {
+        if ( touched )
+        {
+            touched = false;
+            lastTouched = now;
+            return false;
+        }
+
+        if ( ( RunLengthVoxelStorage.ColdDelay <= 0 ) || isCompressed() || ( ( now - lastTouched ) < ( RunLengthVoxelStorage.ColdDelay * 1000L ) ) )
+        {
+            return false;
+        }
+
+        lastTouched = now; // chunks which can't be compressed aren't tried again until another delay has passed
+        return compress();
+    }
+
+    /**
+     * Marks the voxels as touched, taking them out of cold storage if they're in it.
+     *
+     * @since 26.10.17
+     */
+    private void touch()
+    {
+        touched = true;
+        lastUsed = getClock();
+
+        if ( voxels instanceof RunLengthVoxelStorage )
+        {
+            voxels = ( ( RunLengthVoxelStorage ) voxels ).decompress();
+        }
+    }
+
+    //
+    // Counters
+    //
+
+    /**
+     * Updates the active voxel count and the uniform material after a voxel has changed.
+     *
+     * @param prev
+     *         The voxel's previous material id.
+     * @param b
+     *         The voxel's new material id.
+     *
+     * @since 26.10.17
+     */
+    private void updateCounts( byte prev, byte b )
+    {
+        activeCount += ( Material.isActive( b ) ? 1 : 0 ) - ( Material.isActive( prev ) ? 1 : 0 );
+
+        if ( prev == uniformMaterial )
+        {
+            uniformCount--;
+        }
+        else if ( b == uniformMaterial )
+        {
+            uniformCount++;
+        }
+
+        if ( uniformCount == 0 )
+        {
+            // the chunk no longer has any of the old material, so the new one is the only candidate for filling the chunk
+            uniformMaterial = b;
+            uniformCount = 0;
+            for ( int i = 0; i < VOLUME; i++ )
+            {
+                if ( voxels.get( i ) == b )
+                {
+                    uniformCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the active voxels and finds the uniform material from scratch, after the voxels have been replaced in bulk.
+     *
+     * @since 26.10.17
+     */
+    private void recount()
+    {
+        activeCount = 0;
+        uniformMaterial = voxels.get( 0 );
+        uniformCount = 0;
+
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            byte b = voxels.get( i );
+
+            if ( Material.isActive( b ) )
+            {
+                activeCount++;
+            }
+            if ( b == uniformMaterial )
+            {
+                uniformCount++;
+            }
+        }
+    }
+
+    //
+    // Visibility Masks
+    //
+
+    /**
+     * Recalculates the visibility mask of every voxel in this chunk, including the faces on the chunk's border. This only needs to be called when the
+     * neighbouring chunks have been replaced, edits made through {@code setMaterialAt} keep the masks up to date on their own.
+     *
+     * @since 26.10.17
+     */
+    public void updateVisibility()
+    {
+        for ( int z = 0; z < LENGTH; z++ )
+        {
+            for ( int y = 0; y < LENGTH; y++ )
+            {
+                for ( int x = 0; x < LENGTH; x++ )
+                {
+                    int index = x + ( y * LENGTH ) + ( z * AREA );
+
+                    if ( !Material.isActive( voxels.get( index ) ) )
+                    {
+                        visibility[ index ] = 0;
+                        continue; // inactive voxels don't have any visible faces
+                    }
+
+                    int mask = 0;
+                    for ( Face face : Face.VALUES )
+                    {
+                        if ( !isActiveAt( x + face.offsetX, y + face.offsetY, z + face.offsetZ ) )
+                        {
+                            mask |= 1 << face.value;
+                        }
+                    }
+                    visibility[ index ] = ( byte ) mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recalculates the visibility masks after a neighbouring chunk was added or removed, and rebuilds the mesh if the chunk has one.
+     *
+     * @since 26.10.17
+     */
+    public void refreshVisibility()
+    {
+        updateVisibility();
+
+        if ( meshRequested )
+        {
+            scheduleRebuild( ALL_SECTIONS );
+        }
+    }
+
+    /**
+     * Updates the visibility mask of a voxel which was just changed, and the bits of the six voxels touching it which face it. The touching voxels may be
+     * in the neighbouring chunks.
+     *
+     * @param index
+     *         The index of the changed voxel.
+     *
+     * @since 26.10.17
+     */
+    private void updateVisibility( int index )
+    {
+        int x = index % LENGTH;
+        int y = ( index / LENGTH ) % LENGTH;
+        int z = index / AREA;
+
+        boolean active = Material.isActive( voxels.get( index ) );
+        int mask = 0;
+
+        for ( Face face : Face.VALUES )
+        {
+            int tX = x + face.offsetX;
+            int tY = y + face.offsetY;
+            int tZ = z + face.offsetZ;
+
+            // find the chunk containing the touching voxel
+            Chunk owner = this;
+            if ( !inRange( tX, 0, LENGTH ) || !inRange( tY, 0, LENGTH ) || !inRange( tZ, 0, LENGTH ) )
+            {
+                owner = getNeighbour( face.offsetX, face.offsetY, face.offsetZ );
+
+                tX = ( tX + LENGTH ) % LENGTH;
+                tY = ( tY + LENGTH ) % LENGTH;
+                tZ = ( tZ + LENGTH ) % LENGTH;
+            }
+
+            if ( owner == null )
+            {
+                mask |= active ? 1 << face.value : 0; // there's no neighbour, so it's treated as air
+                continue;
+            }
+
+            int touching = tX + ( tY * LENGTH ) + ( tZ * AREA );
+            boolean touchingActive = Material.isActive( owner.voxels.get( touching ) );
+
+            if ( active && !touchingActive )
+            {
+                mask |= 1 << face.value;
             }
 
-            // get the local coordinates
-            x = ( int ) data[ 1 ];
-            y = ( int ) data[ 2 ];
-            z = ( int ) data[ 3 ];
-
-            // set the material in the correct chunk
-            c.setMaterialAt( b, x, y, z );
-            return;
+            // the touching voxel's opposite face is the one facing this voxel
+            int opposite = 1 << ( face.value ^ 1 );
+            if ( touchingActive && !active )
+            {
+                owner.visibility[ touching ] |= opposite;
+            }
+            else
+            {
+                owner.visibility[ touching ] &= ~opposite;
+            }
         }
 
-        setMaterialAt( b, x + ( y * LENGTH ) + ( z * ( AREA ) ) );
+        visibility[ index ] = ( byte ) mask;
+    }
+
+    /**
+     * Checks if a voxel is active, the position may be up to one voxel outside of this chunk, in which case the neighbouring chunk is checked.
+     *
+     * @param x
+     *         The local x coordinate.
+     * @param y
+     *         The local y coordinate.
+     * @param z
+     *         The local z coordinate.
+     *
+     * @return If the voxel is active, voxels in missing chunks are air.
+     *
+     * @since 26.10.17
+     */
+    private boolean isActiveAt( int x, int y, int z )
+    {
+        return Material.isActive( getMaterialIdAt( x, y, z ) );
     }
 
     //
@@ -337,7 +1660,7 @@ public class Chunk
     private Object[] grabExternalVoxelData( int x, int y, int z )
     {
         Object[] data = new Object[ 5 ];
-        if ( region == null )
+        if ( ( region == null ) || detached )
         {
             data[ 0 ] = null;
             data[ 1 ] = Math.abs( x ) % LENGTH;
@@ -368,7 +1691,7 @@ public class Chunk
             z += LENGTH;
         }
 
-        Chunk c = region.getChunkAt( this.x + xOff, this.y + yOff, this.z + zOff );
+        Chunk c = getNeighbour( xOff, yOff, zOff );
         data[ 0 ] = c;
 
         data[ 1 ] = x;
@@ -392,7 +1715,136 @@ public class Chunk
      */
     public int getVertexCount()
     {
-        return vbo.getCoordinates().size();
+        int count = 0;
+        for ( MeshCache.Entry mesh : meshes )
+        {
+            count += mesh == null ? 0 : mesh.vbo.getVertexCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return Which faces of this chunk can see each other through it, see {@link ChunkConnectivity}.
+     *
+     * @since 26.10.17
+     */
+    public long getConnectivity()
+    {
+        return connectivity;
+    }
+
+    /**
+     * @return If the connectivity graph has been computed, until then {@link #getConnectivity()} treats every face as connected.
+     *
+     * @since 26.10.17
+     */
+    public boolean isConnectivityKnown()
+    {
+        synchronized ( meshLock )
+        {
+            return connectivityRevision > 0;
+        }
+    }
+
+    /**
+     * @return The number of active (non-air) voxels in this chunk.
+     *
+     * @since 26.10.17
+     */
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+    /**
+     * @return If this chunk has no active voxels.
+     *
+     * @since 26.10.17
+     */
+    public boolean isEmpty()
+    {
+        return activeCount == 0;
+    }
+
+    /**
+     * @return If every voxel in this chunk is made of the same material.
+     *
+     * @since 26.10.17
+     */
+    public boolean isUniform()
+    {
+        return uniformCount == VOLUME;
+    }
+
+    /**
+     * @return The material filling this chunk, or null if the chunk isn't uniform.
+     *
+     * @since 26.10.17
+     */
+    public Material getUniformMaterial()
+    {
+        return isUniform() ? Material.getMaterial( uniformMaterial ) : null;
+    }
+
+    /**
+     * Finds a chunk near this one, in this region or, if the region is part of a world, in the neighbouring regions.
+     *
+     * @param xOff
+     *         The x offset from this chunk, in chunks.
+     * @param yOff
+     *         The y offset from this chunk, in chunks.
+     * @param zOff
+     *         The z offset from this chunk, in chunks.
+     *
+     * @return The chunk, or null if it isn't loaded, or this chunk stands alone or is detached.
+     *
+     * @since 26.10.17
+     */
+    private Chunk getNeighbour( int xOff, int yOff, int zOff )
+    {
+        if ( ( region == null ) || detached )
+        {
+            return null; // there are no neighbours
+        }
+
+        return region.findChunkAt( x + xOff, y + yOff, z + zOff ); // chunks which haven't been created yet are treated as missing
+    }
+
+    /**
+     * Checks if every voxel in this chunk is active, and so are the six chunks touching it, in which case none of its faces are visible. Missing neighbours
+     * are air, so chunks on the border of a standalone region, or next to an unloaded one, are never buried.
+     *
+     * @return If this chunk is completely surrounded by active voxels.
+     *
+     * @since 26.10.17
+     */
+    public boolean isBuried()
+    {
+        if ( activeCount != VOLUME )
+        {
+            return false;
+        }
+
+        for ( Face face : Face.VALUES )
+        {
+            Chunk neighbour = getNeighbour( face.offsetX, face.offsetY, face.offsetZ );
+            if ( ( neighbour == null ) || ( neighbour.activeCount != VOLUME ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The level of detail this chunk is drawn at.
+     *
+     * @since 26.10.17
+     */
+    public int getLodLevel()
+    {
+        return lodLevel;
     }
 
     /**
@@ -424,12 +1876,25 @@ public class Chunk
             return ( Material ) grabExternalVoxelData( x, y, z )[ 4 ];
         }
 
-        Material mat = Material.getMaterial( voxels[ x + ( y * LENGTH ) + ( z * AREA ) ] ); // get the material
+        touch();
+        Material mat = Material.getMaterial( voxels.get( x + ( y * LENGTH ) + ( z * AREA ) ) ); // get the material
         return mat == null ? Material.AIR : mat; // return AIR if the material could not be found, otherwise the material
     }
 
     /**
-     * Returns the voxel material ids in this chunk.
+     * Returns the visibility masks of the voxels in this chunk, bit {@code face.value} of a voxel's mask is set if that face should be rendered.
+     *
+     * @return The visibility masks, indexed the same as the voxels.
+     *
+     * @since 26.10.17
+     */
+    public byte[] getVisibility()
+    {
+        return visibility;
+    }
+
+    /**
+     * Returns a copy of the voxel material ids in this chunk, changing the array won't change the chunk.
      *
      * @return The voxel material ids in this chunk.
      *
@@ -437,7 +1902,142 @@ public class Chunk
      */
     public byte[] getVoxels()
     {
-        return voxels;
+        touch();
+
+        byte[] copy = new byte[ VOLUME ];
+        voxels.copyTo( 0, copy, 0, VOLUME );
+        return copy;
+    }
+
+    /**
+     * Copies a run of voxel material ids into an array.
+     *
+     * @param index
+     *         The index of the first voxel.
+     * @param dest
+     *         The array to copy into.
+     * @param destIndex
+     *         The index in the array of the first voxel.
+     * @param length
+     *         The number of voxels to copy.
+     *
+     * @since 26.10.17
+     */
+    public void copyVoxels( int index, byte[] dest, int destIndex, int length )
+    {
+        voxels.copyTo( index, dest, destIndex, length );
+    }
+
+    /**
+     * @param index
+     *         The index of the voxel.
+     *
+     * @return The byte id of the voxel's material.
+     *
+     * @since 26.10.17
+     */
+    public byte getMaterialIdAt( int index )
+    {
+        return voxels.get( index );
+    }
+
+    /**
+     * Gets the material id at a local position, without looking up the material. The position may be up to one voxel outside of this chunk, in which case
+     * the neighbouring chunk is checked.
+     *
+     * @param x
+     *         The local x position.
+     * @param y
+     *         The local y position.
+     * @param z
+     *         The local z position.
+     *
+     * @return The byte id of the voxel's material, voxels in missing chunks are air.
+     *
+     * @since 26.10.17
+     */
+    public byte getMaterialIdAt( int x, int y, int z )
+    {
+        if ( inRange( x, 0, LENGTH ) && inRange( y, 0, LENGTH ) && inRange( z, 0, LENGTH ) )
+        {
+            return voxels.get( x + ( y * LENGTH ) + ( z * AREA ) );
+        }
+
+        // the offset to the neighbour containing the voxel
+        int xOff = x < 0 ? -1 : ( x >= LENGTH ? 1 : 0 );
+        int yOff = y < 0 ? -1 : ( y >= LENGTH ? 1 : 0 );
+        int zOff = z < 0 ? -1 : ( z >= LENGTH ? 1 : 0 );
+
+        Chunk c = getNeighbour( xOff, yOff, zOff );
+        if ( c == null )
+        {
+            return Material.AIR.byteID; // missing chunks are air
+        }
+
+        return c.voxels.get( ( x - ( xOff * LENGTH ) ) + ( ( y - ( yOff * LENGTH ) ) * LENGTH ) + ( ( z - ( zOff * LENGTH ) ) * AREA ) );
+    }
+
+    /**
+     * @return If the voxels are in cold storage.
+     *
+     * @since 26.10.17
+     */
+    public boolean isCompressed()
+    {
+        return voxels instanceof RunLengthVoxelStorage;
+    }
+
+    /**
+     * @return The approximate number of bytes used to store this chunk's voxels.
+     *
+     * @since 26.10.17
+     */
+    public int getVoxelMemory()
+    {
+        return voxels.getMemoryUsage();
+    }
+
+    /**
+     * @return If the voxels have changed since they were generated or last saved, and so would be lost if this chunk were thrown away.
+     *
+     * @since 26.10.17
+     */
+    public boolean isModified()
+    {
+        return modified;
+    }
+
+    /**
+     * Sets if the voxels have changed since they were generated or last saved, this is done by whatever generates or saves the chunk.
+     *
+     * @param modified
+     *         If the voxels have changed.
+     *
+     * @since 26.10.17
+     */
+    public void setModified( boolean modified )
+    {
+        this.modified = modified;
+    }
+
+    /**
+     * @return The time on the ChunkCache's clock when this chunk was last rendered or touched.
+     *
+     * @since 26.10.17
+     */
+    public long getLastUsed()
+    {
+        return lastUsed;
+    }
+
+    /**
+     * @return The current time on the clock of the world's ChunkCache, or 0 if this chunk's region isn't part of a world.
+     *
+     * @since 26.10.17
+     */
+    private long getClock()
+    {
+        return ( ( region == null ) || ( region.world == null ) ) ? 0 : region.world.getCache().getClock();
     }
 
     /**
@@ -448,12 +2048,93 @@ public class Chunk
     public double[] getGlobalOffset()
     {
         double[] offset = new double[ 3 ];
-        offset[ 0 ] = ( x * LENGTH ) + ( region == null ? 0 : region.x * Region.LENGTH );
-        offset[ 1 ] = ( y * LENGTH ) + ( region == null ? 0 : region.y * Region.LENGTH );
-        offset[ 2 ] = ( z * LENGTH ) + ( region == null ? 0 : region.z * Region.LENGTH );
+        offset[ 0 ] = getGlobalX();
+        offset[ 1 ] = getGlobalY();
+        offset[ 2 ] = getGlobalZ();
         return offset;
     }
 
+    /**
+     * @return The global x offset of every voxel in the chunk.
+     *
+     * @since 26.10.17
+     */
+    public int getGlobalX()
+    {
+        return ( x * LENGTH ) + ( region == null ? 0 : region.x * World.REGION_VOXELS );
+    }
+
+    /**
+     * @return The global y offset of every voxel in the chunk.
+     *
+     * @since 26.10.17
+     */
+    public int getGlobalY()
+    {
+        return ( y * LENGTH ) + ( region == null ? 0 : region.y * World.REGION_VOXELS );
+    }
+
+    /**
+     * @return The global z offset of every voxel in the chunk.
+     *
+     * @since 26.10.17
+     */
+    public int getGlobalZ()
+    {
+        return ( z * LENGTH ) + ( region == null ? 0 : region.z * World.REGION_VOXELS );
+    }
+
+    //
+    // Static
+    //
+
+    /**
+     * Changes the mesher used to build the meshes of chunks, this will only affect meshes built after the change.
+     *
+     * @param mesher
+     *         The new mesher.
+     *
+     * @since 26.10.17
+     */
+    public static void setMesher( ChunkMesher mesher )
+    {
+        Chunk.mesher = mesher;
+    }
+
+    /**
+     * @return The mesher used to build the meshes of chunks.
+     *
+     * @since 26.10.17
+     */
+    public static ChunkMesher getMesher()
+    {
+        return mesher;
+    }
+
+    /**
+     * Sets the shader used to draw chunk meshes. While a shader is set, meshes are built in the packed format, otherwise they're built in the standard
+     * format. This only affects meshes built after the change, so the chunks should be rebuilt.
+     *
+     * @param shader
+     *         The chunk shader, or null to build standard meshes.
+     *
+     * @since 26.10.17
+     */
+    public static void setShader( ChunkShader shader )
+    {
+        Chunk.shader = shader;
+    }
+
+    /**
+     * @return The shader used to draw packed chunk meshes, or null if meshes are built in the standard format.
+     *
+     * @since 26.10.17
+     */
+    public static ChunkShader getShader()
+    {
+        return shader;
+    }
+
     //
     // Voxel Visibility
     //
@@ -476,18 +2157,25 @@ public class Chunk
      */
     public boolean isVisible( Face face, int x, int y, int z )
     {
-        int[] touchingCoords = face.getTouchingVoxel( x, y, z ); // screw the word "coordiantes"
+        if ( inRange( x, 0, LENGTH ) && inRange( y, 0, LENGTH ) && inRange( z, 0, LENGTH ) )
+        {
+            int index = x + ( y * LENGTH ) + ( z * AREA );
+            if ( Material.isActive( voxels.get( index ) ) )
+            {
+                return ( visibility[ index ] & ( 1 << face.value ) ) != 0; // the mask already knows
+            }
+        }
 
-        int tX = touchingCoords[ 0 ];
-        int tY = touchingCoords[ 1 ];
-        int tZ = touchingCoords[ 2 ];
+        int tX = x + face.offsetX;
+        int tY = y + face.offsetY;
+        int tZ = z + face.offsetZ;
 
-        if ( getMaterialAt( tX, tY, tZ ).active )
+        if ( isActiveAt( tX, tY, tZ ) )
         {
             return false; // the material this face's touching is active, therefore we don't need to render this face
         }
 
-        // TODO follow a trail of faces to determine if the area is enclosed or not
+        // enclosed areas are culled a chunk at a time, see Region.render( Camera )
 
         return true;
     }
@@ -510,9 +2198,9 @@ public class Chunk
     {
         boolean[] faces = new boolean[ 6 ];
 
-        for ( int i = 0; i < faces.length; i++ )
+        for ( Face face : Face.VALUES )
         {
-            faces[ Face.values()[ i ].value ] = isVisible( Face.values()[ i ], x, y, z );
+            faces[ face.value ] = isVisible( face, x, y, z );
         }
 
         return faces;
@@ -534,11 +2222,9 @@ public class Chunk
      */
     public boolean isEclipsed( int x, int y, int z )
     {
-        boolean[] visible = getVisibleFaces( x, y, z ); // get the visibility for every face
-
-        for ( boolean b : visible )
+        for ( Face face : Face.VALUES )
         {
-            if ( b )
+            if ( isVisible( face, x, y, z ) )
             {
                 return false; // if ANY face on this voxel is visible, it is not eclipsed
             }
@@ -564,7 +2250,12 @@ public class Chunk
      */
     public boolean isRenderable( int x, int y, int z )
     {
-        return getMaterialAt( x, y, z ).active && !isEclipsed( x, y, z );
+        if ( inRange( x, 0, LENGTH ) && inRange( y, 0, LENGTH ) && inRange( z, 0, LENGTH ) )
+        {
+            return visibility[ x + ( y * LENGTH ) + ( z * AREA ) ] != 0; // only active voxels with a visible face have a mask
+        }
+
+        return isActiveAt( x, y, z ) && !isEclipsed( x, y, z );
     }
 
     //
@@ -580,9 +2271,9 @@ public class Chunk
         sb.append( y ).append( ", " );
         sb.append( z ).append( ") = { " );
 
-        for ( byte b : voxels )
+        for ( int i = 0; i < VOLUME; i++ )
         {
-            sb.append( ( int ) b ).append( " " );
+            sb.append( ( int ) voxels.get( i ) ).append( " " );
         }
 
         sb.append( "}" );
@@ -590,4 +2281,64 @@ public class Chunk
         return sb.toString();
     }
 
+    //
+    // Nested Classes
+    //
+
+    /**
+     * A mesh which has been built on a worker thread, waiting to be sent to OpenGL.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class PendingMesh
+    {
+
+        /**
+         * The key of the mesh in the MeshCache, null if the mesh isn't shared.
+         */
+        public final MeshCache.Key key;
+
+        /**
+         * The vertices of the mesh, null if the mesh was already cached when it was built.
+         */
+        public MeshBuffer buffer = null;
+
+        /**
+         * @param key
+         *         The key of the mesh in the MeshCache.
+         *
+         * @since 26.10.17
+         */
+        public PendingMesh( MeshCache.Key key )
+        {
+            this.key = key;
+        }
+
+        /**
+         * Releases the mesh's buffer, if it has one.
+         *
+         * @since 26.10.17
+         */
+        public void release()
+        {
+            if ( buffer != null )
+            {
+                buffer.release();
+                buffer = null;
+            }
+        }
+
+        /**
+         * @return If the mesh can be uploaded, either because it was built or because it's still in the cache.
+         *
+         * @since 26.10.17
+         */
+        public boolean isAvailable()
+        {
+            return ( buffer != null ) || MeshCache.contains( key );
+        }
+
+    }
+
 }
@@ -0,0 +1,350 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.io.Lumberjack;
+import com.github.obsidianarch.gvengine.core.io.RegionIO;
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * Keeps the voxels held in memory by a world's chunks under {@link #Budget}. Once the chunks in memory go over the budget, the least recently used ones
+ * are evicted: chunks which have been changed are saved to the cache's directory through RegionIO, then every evicted chunk is taken out of its region.
+ * The next time an evicted chunk is asked for, or reached while rendering, it's loaded back from the directory, or generated again if it was never
+ * changed. Chunks which were used since the last trim are never evicted, so the budget can only be exceeded by what's actually being rendered.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class ChunkCache
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The fraction of the budget chunks are evicted down to, so the cache isn't trimmed again the moment another chunk is created.
+     */
+    private static final double TRIM_TARGET = 0.9;
+
+    //
+    // Options
+    //
+
+    /**
+     * The most memory (in megabytes) the voxels of a world's chunks may take up before chunks are evicted, 0 disables eviction.
+     */
+    @Option( "Voxel memory budget (MB)" )
+    @SliderOption( minimum = 0, maximum = 4096 )
+    public static int Budget = 256;
+
+    //
+    // Fields
+    //
+
+    /**
+     * Counts the trims, chunks are stamped with this when they're used.
+     */
+    private long clock = 0;
+
+    /**
+     * The chunks held in memory by the world's regions.
+     */
+    private final HashSet< Chunk > resident = new HashSet<>();
+
+    /**
+     * The directory evicted chunks are saved to, null until it's needed if a temporary directory is used.
+     */
+    private File directory;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a cache which saves evicted chunks to a temporary directory, created the first time a chunk is saved.
+     *
+     * @since 26.10.17
+     */
+    public ChunkCache()
+    {
+        this( null );
+    }
+
+    /**
+     * Creates a cache which saves evicted chunks to a directory. Chunks already saved there, by an earlier cache, are loaded back like any other evicted
+     * chunk, call {@link #clear()} first if they may have come from a different generator.
+     *
+     * @param directory
+     *         The directory to save evicted chunks to, or null to use a temporary directory.
+     *
+     * @since 26.10.17
+     */
+    public ChunkCache( File directory )
+    {
+        this.directory = directory;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Starts keeping track of a chunk which has been added to one of the world's regions.
+     *
+     * @param c
+     *         The chunk.
+     *
+     * @since 26.10.17
+     */
+    void add( Chunk c )
+    {
+        resident.add( c );
+    }
+
+    /**
+     * Stops keeping track of a chunk which has been taken out of its region without being evicted.
+     *
+     * @param c
+     *         The chunk.
+     *
+     * @since 26.10.17
+     */
+    void remove( Chunk c )
+    {
+        resident.remove( c );
+    }
+
+    /**
+     * Loads the voxels of an evicted chunk back into a new chunk for the same position, and deletes the saved copy. The chunk is left modified, as it
+     * no longer has a copy on disk.
+     *
+     * @param c
+     *         The new, empty chunk.
+     *
+     * @return If the chunk had been saved, if not it should be generated instead.
+     *
+     * @since 26.10.17
+     */
+    boolean restore( Chunk c )
+    {
+        if ( ( directory == null ) || !RegionIO.loadChunk( c, directory ) )
+        {
+            return false;
+        }
+
+        if ( !RegionIO.getChunkFile( c, directory ).delete() )
+        {
+            Lumberjack.error( "ChunkCache", "Couldn't delete the saved copy of chunk (%d, %d, %d)", c.x, c.y, c.z );
+        }
+
+        return true;
+    }
+
+    /**
+     * Evicts a chunk, saving it first if it has been modified, then taking it out of its region and deleting its meshes. This must be called from the
+     * OpenGL thread.
+     *
+     * @param c
+     *         The chunk.
+     *
+     * @return If the chunk was evicted, chunks still waiting to be generated, or which couldn't be saved, are kept.
+     *
+     * @since 26.10.17
+     */
+    public boolean evict( Chunk c )
+    {
+        if ( c.region.isGenerating( c ) )
+        {
+            return false; // its voxels haven't arrived yet
+        }
+
+        if ( c.isModified() )
+        {
+            File dir = getDirectory();
+            if ( ( dir == null ) || !RegionIO.saveChunk( c, dir ) )
+            {
+                return false; // the changes would be lost
+            }
+
+            c.setModified( false );
+        }
+
+        c.region.removeChunk( c );
+        resident.remove( c );
+
+        return true;
+    }
+
+    /**
+     * Evicts the least recently used chunks until the chunks in memory fit in {@link #Budget} again, if they've gone over it. This should be called once a
+     * frame, from the OpenGL thread, as chunks are only known to be unused if they haven't been used since the last trim.
+     *
+     * @return The number of chunks evicted.
+     *
+     * @since 26.10.17
+     */
+    public int trim()
+    {
+        long now = clock++;
+
+        if ( Budget <= 0 )
+        {
+            return 0;
+        }
+
+        long budget = Budget * 1024L * 1024L;
+        long used = getResidentMemory();
+
+        if ( used <= budget )
+        {
+            return 0;
+        }
+
+        ArrayList< Chunk > chunks = new ArrayList<>( resident );
+        Collections.sort( chunks, new Comparator< Chunk >()
+        {
+
+            @Override
+            public int compare( Chunk a, Chunk b )
+            {
+                return Long.compare( a.getLastUsed(), b.getLastUsed() );
+            }
+
+        } );
+
+        int evicted = 0;
+
+        for ( Chunk c : chunks )
+        {
+            if ( ( used <= ( budget * TRIM_TARGET ) ) || ( c.getLastUsed() >= now ) )
+            {
+                break; // under the budget, or only chunks still in use are left
+            }
+
+            int memory = getMemory( c );
+            if ( evict( c ) )
+            {
+                used -= memory;
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Forgets every chunk in memory, and deletes every chunk which has been saved. This should be called once the world's regions have all been unloaded.
+     *
+     * @since 26.10.17
+     */
+    public void clear()
+    {
+        resident.clear();
+
+        if ( ( directory == null ) || !directory.isDirectory() )
+        {
+            return;
+        }
+
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        for ( File f : files )
+        {
+            if ( RegionIO.isChunkFile( f ) && !f.delete() )
+            {
+                Lumberjack.error( "ChunkCache", "Couldn't delete %s", f.getAbsolutePath() );
+            }
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The current time of the cache's clock, chunks are stamped with it when they're used.
+     *
+     * @since 26.10.17
+     */
+    long getClock()
+    {
+        return clock;
+    }
+
+    /**
+     * @param c
+     *         The chunk.
+     *
+     * @return The approximate number of bytes the chunk keeps in memory, its voxels and visibility masks.
+     *
+     * @since 26.10.17
+     */
+    private static int getMemory( Chunk c )
+    {
+        return c.getVoxelMemory() + Chunk.VOLUME;
+    }
+
+    /**
+     * @return The approximate number of bytes used by the chunks in memory.
+     *
+     * @since 26.10.17
+     */
+    public long getResidentMemory()
+    {
+        long used = 0;
+
+        for ( Chunk c : resident )
+        {
+            used += getMemory( c );
+        }
+
+        return used;
+    }
+
+    /**
+     * @return The number of chunks in memory.
+     *
+     * @since 26.10.17
+     */
+    public int getResidentCount()
+    {
+        return resident.size();
+    }
+
+    /**
+     * Returns the directory evicted chunks are saved to, creating a temporary one if none was given.
+     *
+     * @return The directory, or null if a temporary directory couldn't be created.
+     *
+     * @since 26.10.17
+     */
+    public File getDirectory()
+    {
+        if ( directory == null )
+        {
+            try
+            {
+                directory = Files.createTempDirectory( "gvengine-chunks" ).toFile();
+            }
+            catch ( IOException e )
+            {
+                Lumberjack.throwable( "ChunkCache", e );
+            }
+        }
+
+        return directory;
+    }
+
+}
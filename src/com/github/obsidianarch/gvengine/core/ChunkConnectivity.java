@@ -0,0 +1,246 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Works out which faces of a chunk can see each other through the chunk, by flood filling the inactive voxels. Two faces are connected if a single
+ * connected pocket of inactive voxels touches both of them. The result is a graph of 6x6 bits packed into a long, bit {@code ( a * 6 ) + b} is set if face
+ * {@code a} is connected to face {@code b}.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class ChunkConnectivity
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The graph where every face is connected to every other face, used for chunks which haven't been meshed yet.
+     */
+    public static final long ALL = ( 1L << 36 ) - 1;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The scratch arrays of each thread computing connectivity graphs.
+     */
+    private static final ThreadLocal< Scratch > scratch = new ThreadLocal< Scratch >()
+    {
+
+        @Override
+        protected Scratch initialValue()
+        {
+            return new Scratch();
+        }
+
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private ChunkConnectivity()
+    {
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Computes the connectivity graph of a snapshot of a chunk, this only reads from the snapshot, so it may be called from any thread.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     *
+     * @return The connectivity graph.
+     *
+     * @since 26.10.17
+     */
+    public static long compute( ChunkSnapshot snapshot )
+    {
+        if ( snapshot.activeCount == 0 )
+        {
+            return ALL; // the whole chunk is a single pocket
+        }
+        if ( snapshot.activeCount == Chunk.VOLUME )
+        {
+            return 0; // there aren't any pockets
+        }
+
+        Scratch s = scratch.get();
+        int[] queue = s.queue;
+        int[] visited = s.visited;
+        int stamp = ++s.stamp; // voxels visited by this call are marked with this stamp, so the array never has to be cleared
+
+        long graph = 0;
+
+        for ( int start = 0; start < Chunk.VOLUME; start++ )
+        {
+            if ( ( visited[ start ] == stamp ) || isActive( snapshot, start ) )
+            {
+                continue; // already part of a pocket, or not part of one at all
+            }
+
+            // flood fill the pocket, collecting the faces it touches
+            int faces = 0;
+            int head = 0;
+            int tail = 0;
+
+            queue[ tail++ ] = start;
+            visited[ start ] = stamp;
+
+            while ( head < tail )
+            {
+                int index = queue[ head++ ];
+                int x = index % Chunk.LENGTH;
+                int y = ( index / Chunk.LENGTH ) % Chunk.LENGTH;
+                int z = index / Chunk.AREA;
+
+                for ( Face face : Face.VALUES )
+                {
+                    int tX = x + face.offsetX;
+                    int tY = y + face.offsetY;
+                    int tZ = z + face.offsetZ;
+
+                    if ( ( tX < 0 ) || ( tX >= Chunk.LENGTH ) || ( tY < 0 ) || ( tY >= Chunk.LENGTH ) || ( tZ < 0 ) || ( tZ >= Chunk.LENGTH ) )
+                    {
+                        faces |= 1 << face.value; // the pocket reaches this face of the chunk
+                        continue;
+                    }
+
+                    int touching = tX + ( tY * Chunk.LENGTH ) + ( tZ * Chunk.AREA );
+                    if ( ( visited[ touching ] != stamp ) && !isActive( snapshot, touching ) )
+                    {
+                        visited[ touching ] = stamp;
+                        queue[ tail++ ] = touching;
+                    }
+                }
+            }
+
+            graph |= connect( faces );
+            if ( graph == ALL )
+            {
+                return ALL; // nothing more can be connected
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Connects every pair of faces in the set to each other.
+     *
+     * @param faces
+     *         The faces touched by a single pocket, one bit per face.
+     *
+     * @return The connections between the faces.
+     *
+     * @since 26.10.17
+     */
+    private static long connect( int faces )
+    {
+        long graph = 0;
+
+        for ( int a = 0; a < 6; a++ )
+        {
+            if ( ( faces & ( 1 << a ) ) == 0 )
+            {
+                continue;
+            }
+
+            for ( int b = 0; b < 6; b++ )
+            {
+                if ( ( faces & ( 1 << b ) ) != 0 )
+                {
+                    graph |= 1L << ( ( a * 6 ) + b );
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Checks if two faces are connected in a graph.
+     *
+     * @param graph
+     *         The connectivity graph.
+     * @param from
+     *         The value of the first face.
+     * @param to
+     *         The value of the second face.
+     *
+     * @return If the faces can see each other through the chunk.
+     *
+     * @since 26.10.17
+     */
+    public static boolean isConnected( long graph, int from, int to )
+    {
+        return ( graph & ( 1L << ( ( from * 6 ) + to ) ) ) != 0;
+    }
+
+    /**
+     * Checks if a voxel in the snapshot is active.
+     *
+     * @param snapshot
+     *         The snapshot.
+     * @param index
+     *         The index of the voxel in the chunk.
+     *
+     * @return If the voxel is active.
+     *
+     * @since 26.10.17
+     */
+    private static boolean isActive( ChunkSnapshot snapshot, int index )
+    {
+        int x = index % Chunk.LENGTH;
+        int y = ( index / Chunk.LENGTH ) % Chunk.LENGTH;
+        int z = index / Chunk.AREA;
+
+        return snapshot.isActive( ChunkSnapshot.getIndex( x, y, z ) );
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * The arrays reused by a single thread between computations.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class Scratch
+    {
+
+        /**
+         * The voxels waiting to be visited by the flood fill.
+         */
+        public final int[] queue = new int[ Chunk.VOLUME ];
+
+        /**
+         * The stamp of the last computation to visit each voxel.
+         */
+        public final int[] visited = new int[ Chunk.VOLUME ];
+
+        /**
+         * The stamp of the current computation.
+         */
+        public int stamp = 0;
+
+    }
+
+}
@@ -2,10 +2,11 @@ package com.github.obsidianarch.gvengine.core;
 
 
 /**
- * Generates the terrain inside of a chunk.
+ * Generates the terrain inside of a chunk. Generators used by the GenerationPool are called from several threads at once, so they shouldn't keep any
+ * state between chunks.
  *
  * @author Austin
- * @version 14.03.30
+ * @version 26.10.17
  * @since 14.03.30
  */
 public abstract class ChunkGenerator
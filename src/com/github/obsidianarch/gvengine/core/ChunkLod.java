@@ -0,0 +1,260 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+/**
+ * Builds the reduced detail meshes drawn for distant chunks. Level {@code n} merges every {@code 2^n x 2^n x 2^n} cube of voxels into a single cell,
+ * which takes the most common active material in the cube if at least half of the cube is active, and is air otherwise. Faces on the chunk's border are
+ * always kept, as the neighbouring chunk may be drawn at a different level, which would otherwise leave holes along the seam.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class ChunkLod
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The most reduced level, where each cell is 8x8x8 voxels.
+     */
+    public static final int MAX_LEVEL = 3;
+
+    //
+    // Options
+    //
+
+    /**
+     * The distance (in voxels) from the camera covered by each level of detail, 0 disables reduced detail meshes.
+     */
+    @Option( "LOD distance" )
+    @SliderOption( minimum = 0, maximum = 512 )
+    public static int Distance = 96;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The scratch arrays of each thread building reduced meshes.
+     */
+    private static final ThreadLocal< Scratch > scratch = new ThreadLocal< Scratch >()
+    {
+
+        @Override
+        protected Scratch initialValue()
+        {
+            return new Scratch();
+        }
+
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private ChunkLod()
+    {
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Builds the mesh of a snapshot at a reduced level of detail, this only reads from the snapshot, so it may be called from any thread.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param level
+     *         The level of detail, from 1 to {@link #MAX_LEVEL}.
+     * @param mesh
+     *         The buffer to which the vertices will be written.
+     *
+     * @since 26.10.17
+     */
+    public static void buildMesh( ChunkSnapshot snapshot, int level, MeshBuffer mesh )
+    {
+        Scratch s = scratch.get();
+        byte[] cells = s.cells;
+
+        int size = 1 << level; // the length of a cell in voxels
+        int length = Chunk.LENGTH / size; // the length of the chunk in cells
+
+        // reduce the voxels into cells
+        for ( int cZ = 0; cZ < length; cZ++ )
+        {
+            for ( int cY = 0; cY < length; cY++ )
+            {
+                for ( int cX = 0; cX < length; cX++ )
+                {
+                    cells[ cX + ( cY * length ) + ( cZ * length * length ) ] = reduce( snapshot, s.counts, cX * size, cY * size, cZ * size, size );
+                }
+            }
+        }
+
+        // create the faces of the active cells which aren't touching another active cell
+        for ( int cZ = 0; cZ < length; cZ++ )
+        {
+            for ( int cY = 0; cY < length; cY++ )
+            {
+                for ( int cX = 0; cX < length; cX++ )
+                {
+                    byte id = cells[ cX + ( cY * length ) + ( cZ * length * length ) ];
+
+                    if ( !Material.isActive( id ) )
+                    {
+                        continue;
+                    }
+
+                    for ( Face face : Face.VALUES )
+                    {
+                        int tX = cX + face.offsetX;
+                        int tY = cY + face.offsetY;
+                        int tZ = cZ + face.offsetZ;
+
+                        boolean border = ( tX < 0 ) || ( tX >= length ) || ( tY < 0 ) || ( tY >= length ) || ( tZ < 0 ) || ( tZ >= length );
+
+                        if ( !border && Material.isActive( cells[ tX + ( tY * length ) + ( tZ * length * length ) ] ) )
+                        {
+                            continue; // hidden by the touching cell
+                        }
+
+                        mesh.addFace( face, cX * size, cY * size, cZ * size, size, size, size, id );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces a cube of voxels to a single material.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk.
+     * @param counts
+     *         The array used to count the materials, every entry must be zero, and will be zero again once this returns.
+     * @param x
+     *         The local x coordinate of the cube's corner.
+     * @param y
+     *         The local y coordinate of the cube's corner.
+     * @param z
+     *         The local z coordinate of the cube's corner.
+     * @param size
+     *         The length of the cube.
+     *
+     * @return The byte id of the most common active material, or air if less than half of the cube is active.
+     *
+     * @since 26.10.17
+     */
+    private static byte reduce( ChunkSnapshot snapshot, int[] counts, int x, int y, int z, int size )
+    {
+        int active = 0;
+        int best = 0;
+        int bestIndex = 0;
+
+        for ( int k = z; k < ( z + size ); k++ )
+        {
+            for ( int j = y; j < ( y + size ); j++ )
+            {
+                for ( int i = x; i < ( x + size ); i++ )
+                {
+                    byte id = snapshot.voxels[ ChunkSnapshot.getIndex( i, j, k ) ];
+                    if ( !Material.isActive( id ) )
+                    {
+                        continue;
+                    }
+
+                    active++;
+
+                    int count = ++counts[ id + 128 ];
+                    if ( count > best )
+                    {
+                        best = count;
+                        bestIndex = id + 128;
+                    }
+                }
+            }
+        }
+
+        // clear the counts for the next cube
+        if ( active > 0 )
+        {
+            for ( int k = z; k < ( z + size ); k++ )
+            {
+                for ( int j = y; j < ( y + size ); j++ )
+                {
+                    for ( int i = x; i < ( x + size ); i++ )
+                    {
+                        counts[ snapshot.voxels[ ChunkSnapshot.getIndex( i, j, k ) ] + 128 ] = 0;
+                    }
+                }
+            }
+        }
+
+        if ( ( active * 2 ) < ( size * size * size ) )
+        {
+            return Material.AIR.byteID; // mostly empty
+        }
+
+        return ( byte ) ( bestIndex - 128 );
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Picks the level of detail to draw a chunk at.
+     *
+     * @param distance
+     *         The distance from the camera to the center of the chunk, in voxels.
+     *
+     * @return The level of detail, 0 is full detail.
+     *
+     * @since 26.10.17
+     */
+    public static int getLevel( double distance )
+    {
+        if ( Distance <= 0 )
+        {
+            return 0;
+        }
+
+        return Math.min( MAX_LEVEL, ( int ) ( distance / Distance ) );
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * The arrays reused by a single thread between reduced meshes.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class Scratch
+    {
+
+        /**
+         * The materials of the cells, large enough for the first level.
+         */
+        public final byte[] cells = new byte[ Chunk.VOLUME / 8 ];
+
+        /**
+         * The number of voxels of each material in the cube being reduced.
+         */
+        public final int[] counts = new int[ 256 ];
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Converts the voxels inside of a chunk into the vertex data that is rendered by the chunk's VertexBufferObject.
+ *
+ * @version 26.10.17
+ * @see FaceChunkMesher
+ * @see GreedyChunkMesher
+ * @see BinaryChunkMesher
+ * @since 26.10.17
+ */
+public abstract class ChunkMesher
+{
+
+    //
+    // Actions
+    //
+
+    /**
+     * Builds the mesh for an entire snapshot of a chunk.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk to build the mesh for.
+     * @param mesh
+     *         The buffer to which the vertices will be written.
+     *
+     * @since 26.10.17
+     */
+    public void buildMesh( ChunkSnapshot snapshot, MeshBuffer mesh )
+    {
+        buildMesh( snapshot, mesh, 0, Chunk.LENGTH );
+    }
+
+    //
+    // Abstract
+    //
+
+    /**
+     * Builds the mesh for the voxels of a snapshot between two heights, writing the interleaved vertex data into the mesh buffer. This is used to mesh a
+     * single section of a chunk, the faces of voxels outside of the heights are left for the other sections' meshes. Meshers only read from the snapshot,
+     * so they may be called from any thread.
+     *
+     * @param snapshot
+     *         The snapshot of the chunk to build the mesh for.
+     * @param mesh
+     *         The buffer to which the vertices will be written.
+     * @param minY
+     *         The lowest local y coordinate to mesh (inclusive).
+     * @param maxY
+     *         The highest local y coordinate to mesh (exclusive).
+     *
+     * @since 26.10.17
+     */
+    public abstract void buildMesh( ChunkSnapshot snapshot, MeshBuffer mesh, int minY, int maxY );
+
+}
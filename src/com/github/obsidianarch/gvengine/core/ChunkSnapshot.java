@@ -0,0 +1,307 @@
+package com.github.obsidianarch.gvengine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A copy of a chunk's voxels and visibility masks, with the voxels surrounded by a one voxel border taken from the six neighbouring chunks, which is
+ * what the meshers work on. Every neighbour a voxel inside of the chunk could touch is in the snapshot, so visibility checks never have to leave it,
+ * and because it's a copy the chunk may be edited while a worker thread is meshing it. The edges and corners of the border are not copied, as faces are
+ * only ever culled by the six direct neighbours.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class ChunkSnapshot
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The length of one side of the snapshot, the chunk's length plus a voxel on either side.
+     */
+    public static final int LENGTH = Chunk.LENGTH + 2;
+
+    /**
+     * The area of one face of the snapshot.
+     */
+    public static final int AREA = LENGTH * LENGTH;
+
+    /**
+     * The total volume of the snapshot.
+     */
+    public static final int VOLUME = AREA * LENGTH;
+
+    /**
+     * The difference in index between a voxel and the voxel touching each of its faces, ordered by the face's value.
+     */
+    public static final int[] FACE_OFFSETS = { -1, 1, -LENGTH, LENGTH, -AREA, AREA };
+
+    /**
+     * The maximum number of snapshots kept in the pool.
+     */
+    private static final int MAX_POOLED = 64;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The snapshots which are not currently in use.
+     */
+    private static final ArrayList< ChunkSnapshot > pool = new ArrayList<>();
+
+    //
+    // Fields
+    //
+
+    /**
+     * The material ids of the voxels, indexed by {@link #getIndex(int, int, int)}.
+     */
+    public final byte[] voxels = new byte[ VOLUME ];
+
+    /**
+     * The visibility masks of the chunk's voxels, indexed like the chunk's own voxels rather than by {@link #getIndex(int, int, int)}.
+     */
+    public final byte[] visibility = new byte[ Chunk.VOLUME ];
+
+    /**
+     * The revision of the chunk this snapshot was taken of, later snapshots of the same chunk have higher revisions.
+     */
+    int revision;
+
+    /**
+     * The sections of the chunk which should be meshed from this snapshot, one bit per section.
+     */
+    int sections;
+
+    /**
+     * The level of detail of the reduced mesh to build from this snapshot, 0 if the sections should be meshed instead.
+     */
+    int lodLevel;
+
+    /**
+     * The number of active voxels in the chunk when it was captured, not counting the border.
+     */
+    int activeCount;
+
+    /**
+     * The global x offset of the chunk's voxels.
+     */
+    private int globalX;
+
+    /**
+     * The global y offset of the chunk's voxels.
+     */
+    private int globalY;
+
+    /**
+     * The global z offset of the chunk's voxels.
+     */
+    private int globalZ;
+
+    //
+    // Pooling
+    //
+
+    /**
+     * Takes a snapshot from the pool, or creates one if the pool is empty, and captures the chunk into it.
+     *
+     * @param c
+     *         The chunk to capture.
+     *
+     * @return The snapshot of the chunk.
+     *
+     * @since 26.10.17
+     */
+    public static ChunkSnapshot acquire( Chunk c )
+    {
+        ChunkSnapshot snapshot = null;
+
+        synchronized ( pool )
+        {
+            if ( !pool.isEmpty() )
+            {
+                snapshot = pool.remove( pool.size() - 1 );
+            }
+        }
+
+        if ( snapshot == null )
+        {
+            snapshot = new ChunkSnapshot();
+        }
+
+        snapshot.capture( c );
+        return snapshot;
+    }
+
+    /**
+     * Returns this snapshot to the pool, it must not be used after it has been released.
+     *
+     * @since 26.10.17
+     */
+    public void release()
+    {
+        synchronized ( pool )
+        {
+            if ( pool.size() < MAX_POOLED )
+            {
+                pool.add( this );
+            }
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Copies the voxels of the chunk, and the layers of the neighbouring chunks which touch it, into this snapshot. This must be called from the thread
+     * which edits the chunks.
+     *
+     * @param c
+     *         The chunk to capture.
+     *
+     * @since 26.10.17
+     */
+    public void capture( Chunk c )
+    {
+        globalX = c.getGlobalX();
+        globalY = c.getGlobalY();
+        globalZ = c.getGlobalZ();
+
+        activeCount = c.getActiveCount();
+
+        System.arraycopy( c.getVisibility(), 0, visibility, 0, Chunk.VOLUME );
+
+        if ( c.isUniform() )
+        {
+            // every voxel is the same, the border is overwritten below
+            Arrays.fill( voxels, c.getMaterialIdAt( 0 ) );
+        }
+        else
+        {
+            // copy the chunk's own voxels, one row at a time
+            for ( int z = 0; z < Chunk.LENGTH; z++ )
+            {
+                for ( int y = 0; y < Chunk.LENGTH; y++ )
+                {
+                    c.copyVoxels( ( y * Chunk.LENGTH ) + ( z * Chunk.AREA ), voxels, getIndex( 0, y, z ), Chunk.LENGTH );
+                }
+            }
+        }
+
+        // copy the layer of each neighbour which touches this chunk
+        for ( Face face : Face.VALUES )
+        {
+            Chunk neighbour = c.region == null ? null : c.region.findChunkAt( c.x + face.offsetX, c.y + face.offsetY, c.z + face.offsetZ );
+
+            for ( int j = 0; j < Chunk.LENGTH; j++ )
+            {
+                for ( int i = 0; i < Chunk.LENGTH; i++ )
+                {
+                    // the position of the border voxel in this chunk's coordinates
+                    int x = face.offsetX == 0 ? i : ( face.offsetX < 0 ? -1 : Chunk.LENGTH );
+                    int y = face.offsetY == 0 ? ( face.offsetX == 0 ? j : i ) : ( face.offsetY < 0 ? -1 : Chunk.LENGTH );
+                    int z = face.offsetZ == 0 ? j : ( face.offsetZ < 0 ? -1 : Chunk.LENGTH );
+
+                    byte b = 0; // there's no neighbour, so it's treated as air
+                    if ( neighbour != null )
+                    {
+                        // wrap the position around into the neighbour's coordinates
+                        int nX = ( x + Chunk.LENGTH ) % Chunk.LENGTH;
+                        int nY = ( y + Chunk.LENGTH ) % Chunk.LENGTH;
+                        int nZ = ( z + Chunk.LENGTH ) % Chunk.LENGTH;
+                        b = neighbour.getMaterialIdAt( nX + ( nY * Chunk.LENGTH ) + ( nZ * Chunk.AREA ) );
+                    }
+
+                    voxels[ getIndex( x, y, z ) ] = b;
+                }
+            }
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the index of a voxel in the snapshot, the coordinates are in the chunk's local space and may be anywhere from -1 to {@code Chunk.LENGTH}.
+     *
+     * @param x
+     *         The local x coordinate.
+     * @param y
+     *         The local y coordinate.
+     * @param z
+     *         The local z coordinate.
+     *
+     * @return The index of the voxel in {@link #voxels}.
+     *
+     * @since 26.10.17
+     */
+    public static int getIndex( int x, int y, int z )
+    {
+        return ( x + 1 ) + ( ( y + 1 ) * LENGTH ) + ( ( z + 1 ) * AREA );
+    }
+
+    /**
+     * Returns the material id at the local position, which may be anywhere from -1 to {@code Chunk.LENGTH}.
+     *
+     * @param x
+     *         The local x coordinate.
+     * @param y
+     *         The local y coordinate.
+     * @param z
+     *         The local z coordinate.
+     *
+     * @return The material id at the position.
+     *
+     * @since 26.10.17
+     */
+    public byte getMaterialIdAt( int x, int y, int z )
+    {
+        return voxels[ getIndex( x, y, z ) ];
+    }
+
+    /**
+     * Checks if the voxel at the index is made of an active material, one which hides the faces touching it.
+     *
+     * @param index
+     *         The index of the voxel in {@link #voxels}.
+     *
+     * @return If the voxel's material is active.
+     *
+     * @since 26.10.17
+     */
+    public boolean isActive( int index )
+    {
+        return Material.isActive( voxels[ index ] );
+    }
+
+    /**
+     * @return The global x offset of the chunk's voxels.
+     */
+    public int getGlobalX()
+    {
+        return globalX;
+    }
+
+    /**
+     * @return The global y offset of the chunk's voxels.
+     */
+    public int getGlobalY()
+    {
+        return globalY;
+    }
+
+    /**
+     * @return The global z offset of the chunk's voxels.
+     */
+    public int getGlobalZ()
+    {
+        return globalZ;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * The layouts a chunk's mesh can be written in.
+ *
+ * @version 26.10.17
+ * @see MeshBuffer
+ * @since 26.10.17
+ */
+public enum ChunkVertexFormat
+{
+
+    /**
+     * Nine floats per vertex, the position relative to the mesh's origin, color, and normal, as a VertexBufferObject using {@code PositionSystem.XYZ},
+     * {@code ColorSystem.RGB}, and {@code NormalSystem.ENABLED} expects it. This can be rendered without any shaders.
+     */
+    STANDARD( ( PositionSystem.XYZ.coordinates + ColorSystem.RGB.channels + NormalSystem.ENABLED.coordinates ) * 4 ),
+    /**
+     * Four shorts per vertex, the position relative to the mesh's origin followed by the face and the material's palette index packed as
+     * {@code face | ( material << 3 )}. The normal and color are decoded by the {@code ChunkShader}, which also moves the mesh into place.
+     */
+    PACKED( 4 * 2 );
+
+    /**
+     * The number of bytes in a single vertex.
+     */
+    public final int bytesPerVertex;
+
+    /**
+     * @param bytesPerVertex
+     *         The number of bytes in a single vertex.
+     *
+     * @since 26.10.17
+     */
+    ChunkVertexFormat( int bytesPerVertex )
+    {
+        this.bytesPerVertex = bytesPerVertex;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.obsidianarch.gvengine.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A view of a chunk's slot in a direct buffer shared by its whole region, so the voxels live off of the heap and every chunk of the region is laid out
+ * contiguously. The garbage collector never has to mark or move the voxels, and a region's voxels can be copied in bulk.
+ *
+ * @version 26.10.17
+ * @see Region#OffHeap
+ * @since 26.10.17
+ */
+public class DirectVoxelStorage extends VoxelStorage
+{
+
+    //
+    // Fields
+    //
+
+    /**
+     * The chunk's slot in the region's buffer.
+     */
+    private final ByteBuffer voxels;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a view of a slot in a buffer, the slot is cleared to air.
+     *
+     * @param buffer
+     *         The buffer holding the voxels of every chunk in the region.
+     * @param offset
+     *         The index of the slot's first voxel in the buffer.
+     *
+     * @since 26.10.17
+     */
+    public DirectVoxelStorage( ByteBuffer buffer, int offset )
+    {
+        ByteBuffer slot = buffer.duplicate();
+        slot.limit( offset + Chunk.VOLUME ).position( offset );
+        voxels = slot.slice();
+
+        voxels.put( new byte[ Chunk.VOLUME ] ); // the slot may still hold the voxels of the chunk this one replaced
+        voxels.clear();
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public byte get( int index )
+    {
+        return voxels.get( index );
+    }
+
+    @Override
+    public void set( int index, byte b )
+    {
+        voxels.put( index, b );
+    }
+
+    @Override
+    public void copyTo( int index, byte[] dest, int destIndex, int length )
+    {
+        ByteBuffer source = voxels.duplicate(); // the position is shared, so it's never moved on the view itself
+        source.position( index );
+        source.get( dest, destIndex, length );
+    }
+
+    @Override
+    public void copyFrom( int index, byte[] src, int srcIndex, int length )
+    {
+        ByteBuffer dest = voxels.duplicate();
+        dest.position( index );
+        dest.put( src, srcIndex, length );
+    }
+
+    @Override
+    public boolean isCompressible()
+    {
+        return false; // the region's buffer stays allocated either way
+    }
+
+    @Override
+    public int getMemoryUsage()
+    {
+        return Chunk.VOLUME;
+    }
+
+}
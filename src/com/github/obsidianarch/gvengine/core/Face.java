@@ -4,7 +4,7 @@ package com.github.obsidianarch.gvengine.core;
  * One of the six faces on a voxel.
  *
  * @author Austin
- * @version 14.10.26
+ * @version 26.10.17
  * @since 14.03.30
  */
 public enum Face
@@ -13,27 +13,42 @@ public enum Face
     /**
      * The left side of a voxel.
      */
-    LEFT( 0 ),
+    LEFT( 0, -1, 0, 0, new byte[] { 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 1, 0, 0, 0, 1, 0, 1, 1 },
+          new byte[] { 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 1, 1 } ),
     /**
      * The right side of a voxel.
      */
-    RIGHT( 1 ),
+    RIGHT( 1, 1, 0, 0, new byte[] { 1, 1, 1, 1, 0, 1, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 1, 0 },
+           new byte[] { 1, 1, 1, 1, 0, 1, 1, 0, 0, 1, 1, 0 } ),
     /**
      * The bottom side of a voxel.
      */
-    BOTTOM( 2 ),
+    BOTTOM( 2, 0, -1, 0, new byte[] { 0, 0, 1, 0, 0, 0, 1, 0, 1, 0, 0, 0, 1, 0, 0, 1, 0, 1 },
+            new byte[] { 1, 0, 1, 0, 0, 1, 0, 0, 0, 1, 0, 0 } ),
     /**
      * The top side of a voxel.
      */
-    TOP( 3 ),
+    TOP( 3, 0, 1, 0, new byte[] { 1, 1, 1, 0, 1, 0, 0, 1, 1, 1, 1, 1, 1, 1, 0, 0, 1, 0 },
+         new byte[] { 0, 1, 0, 0, 1, 1, 1, 1, 1, 1, 1, 0 } ),
     /**
      * The front side of a voxel.
      */
-    FRONT( 4 ),
+    FRONT( 4, 0, 0, -1, new byte[] { 1, 1, 0, 1, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0, 0, 0, 1, 0 },
+           new byte[] { 1, 1, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0 } ),
     /**
      * The back side of a voxel.
      */
-    BACK( 5 );
+    BACK( 5, 0, 0, 1, new byte[] { 0, 0, 1, 1, 0, 1, 1, 1, 1, 0, 1, 1, 0, 0, 1, 1, 1, 1 },
+          new byte[] { 0, 0, 1, 1, 0, 1, 1, 1, 1, 0, 1, 1 } );
+
+    //
+    // Constants
+    //
+
+    /**
+     * Every face, ordered by value. {@code values()} creates a new array every call, so this should be used inside of loops instead.
+     */
+    static final Face[] VALUES = values();
 
     //
     // Fields
@@ -44,6 +59,33 @@ public enum Face
      */
     public int value;
 
+    /**
+     * The x component of the direction this face points in, also the x offset to the voxel touching this face.
+     */
+    public final int offsetX;
+
+    /**
+     * The y component of the direction this face points in, also the y offset to the voxel touching this face.
+     */
+    public final int offsetY;
+
+    /**
+     * The z component of the direction this face points in, also the z offset to the voxel touching this face.
+     */
+    public final int offsetZ;
+
+    /**
+     * The corners of the face's two triangles on a unit cube, as {@code x, y, z} triplets. Multiplying a corner by a face's size and adding its position
+     * gives the vertex, so the same table is used for single voxel faces and merged faces.
+     */
+    final byte[] corners;
+
+    /**
+     * The four corners of the face on a unit cube, as {@code x, y, z} triplets. Drawing them as the triangles {@code 0, 1, 2} and {@code 2, 3, 0} gives
+     * the same two triangles as {@link #corners}.
+     */
+    final byte[] quadCorners;
+
     //
     // Constructors
     //
@@ -51,12 +93,27 @@ public enum Face
     /**
      * @param i
      *         An integer value representing the face direction (used in arrays).
+     * @param offsetX
+     *         The x component of the face's direction.
+     * @param offsetY
+     *         The y component of the face's direction.
+     * @param offsetZ
+     *         The z component of the face's direction.
+     * @param corners
+     *         The corners of the face's triangles on a unit cube.
+     * @param quadCorners
+     *         The corners of the face's quad on a unit cube.
      *
      * @since 14.03.30
      */
-    Face( int i )
+    Face( int i, int offsetX, int offsetY, int offsetZ, byte[] corners, byte[] quadCorners )
     {
         value = i;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+        this.corners = corners;
+        this.quadCorners = quadCorners;
     }
 
     //
@@ -0,0 +1,46 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Meshes a chunk one voxel at a time, creating a quad for every visible face of every voxel, as read from the chunk's visibility masks. The vertex data
+ * is written straight into the mesh buffer from the faces' precomputed corner tables, so nothing is allocated while meshing.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class FaceChunkMesher extends ChunkMesher
+{
+
+    @Override
+    public void buildMesh( ChunkSnapshot snapshot, MeshBuffer mesh, int minY, int maxY )
+    {
+        for ( int z = 0; z < Chunk.LENGTH; z++ )
+        {
+            for ( int y = minY; y < maxY; y++ )
+            {
+                int index = ChunkSnapshot.getIndex( 0, y, z ); // the index of the first voxel in the row
+                int local = ( y * Chunk.LENGTH ) + ( z * Chunk.AREA ); // the same voxel's index in the chunk
+
+                for ( int x = 0; x < Chunk.LENGTH; x++, index++, local++ )
+                {
+                    int mask = snapshot.visibility[ local ];
+
+                    if ( mask == 0 )
+                    {
+                        continue; // this voxel is inactive or eclipsed
+                    }
+
+                    byte id = snapshot.voxels[ index ];
+
+                    for ( Face face : Face.VALUES )
+                    {
+                        if ( ( mask & ( 1 << face.value ) ) != 0 )
+                        {
+                            mesh.addFace( face, x, y, z, 1, 1, 1, id );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
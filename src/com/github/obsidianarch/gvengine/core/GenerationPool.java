@@ -0,0 +1,503 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.io.Lumberjack;
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of worker threads which run chunk generators, nearest chunk first. Each chunk is generated into a detached stand-in, so the generator never
+ * touches the chunks being rendered, and the finished voxels are copied into the real chunk on the rendering thread by {@link #publish()}, which updates
+ * the visibility masks and schedules the rebuilds just like any other bulk edit. Requests are ordered by their distance from the camera, with chunks
+ * outside of the camera's view pushed back, and can be cancelled at any time before they're published.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class GenerationPool
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The cosine of the angle from the view direction within which chunks count as in view. The camera doesn't know its field of view, so this stands in
+     * for the view frustum.
+     */
+    private static final double VIEW_COS = 0.5;
+
+    /**
+     * How much further away chunks outside of the view are treated as, squared.
+     */
+    private static final double OUT_OF_VIEW_PENALTY = 4;
+
+    //
+    // Options
+    //
+
+    /**
+     * The number of threads generating chunks, when 0 chunks are generated on the rendering thread as they're published instead.
+     */
+    @Option( "Generation threads" )
+    @SliderOption( minimum = 0, maximum = 64 )
+    public static int Threads = Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 );
+
+    /**
+     * The most generated chunks copied into the world each time the finished chunks are published.
+     */
+    @Option( "Chunks published per frame" )
+    @SliderOption( minimum = 1, maximum = 256 )
+    public static int PublishLimit = 16;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The requests waiting to be generated, the nearest first. This is also the lock guarding the camera position and the workers.
+     */
+    private static final PriorityQueue< Request > queue = new PriorityQueue<>( 64, new Comparator< Request >()
+    {
+
+        @Override
+        public int compare( Request a, Request b )
+        {
+            return Double.compare( a.priority, b.priority );
+        }
+
+    } );
+
+    /**
+     * The requests which have been generated, waiting to be published.
+     */
+    private static final ConcurrentLinkedQueue< Request > finished = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The position of the camera the requests are ordered by.
+     */
+    private static float cameraX, cameraY, cameraZ;
+
+    /**
+     * The direction the camera is looking along.
+     */
+    private static float[] direction = { 0, 0, -1 };
+
+    /**
+     * The number of worker threads running.
+     */
+    private static int workers = 0;
+
+    /**
+     * The number of threads created so far, used for naming them.
+     */
+    private static final AtomicInteger created = new AtomicInteger();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private GenerationPool()
+    {
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Requests a chunk to be generated. The chunk is left as it is until the request is published.
+     *
+     * @param c
+     *         The chunk to generate.
+     * @param generator
+     *         The generator to fill the chunk with, which may be called from several threads at once.
+     *
+     * @return The request, which can be cancelled.
+     *
+     * @since 26.10.17
+     */
+    public static Request submit( Chunk c, ChunkGenerator generator )
+    {
+        Request request = new Request( c, generator );
+
+        synchronized ( queue )
+        {
+            request.priority = getPriority( c );
+            queue.add( request );
+
+            startWorkers();
+            queue.notify();
+        }
+
+        return request;
+    }
+
+    /**
+     * Reorders the waiting requests around the camera's new position and direction, this should be called whenever the camera moves. Nothing is reordered
+     * until the camera has moved a chunk away or turned noticeably.
+     *
+     * @param camera
+     *         The camera the world is being viewed from.
+     *
+     * @since 26.10.17
+     */
+    public static void prioritize( Camera camera )
+    {
+        float[] newDirection = camera.getDirection();
+
+        synchronized ( queue )
+        {
+            float dX = camera.getX() - cameraX;
+            float dY = camera.getY() - cameraY;
+            float dZ = camera.getZ() - cameraZ;
+            float turn = ( newDirection[ 0 ] * direction[ 0 ] ) + ( newDirection[ 1 ] * direction[ 1 ] ) + ( newDirection[ 2 ] * direction[ 2 ] );
+
+            if ( ( ( ( dX * dX ) + ( dY * dY ) + ( dZ * dZ ) ) < ( Chunk.LENGTH * Chunk.LENGTH ) ) && ( turn > 0.95f ) )
+            {
+                return; // the order hasn't changed enough to be worth sorting again
+            }
+
+            cameraX = camera.getX();
+            cameraY = camera.getY();
+            cameraZ = camera.getZ();
+            direction = newDirection;
+
+            ArrayList< Request > waiting = new ArrayList<>( queue );
+            queue.clear();
+
+            for ( Request request : waiting )
+            {
+                request.priority = getPriority( request.chunk );
+            }
+            queue.addAll( waiting );
+        }
+    }
+
+    /**
+     * Copies the voxels of finished requests into their chunks, at most {@link #PublishLimit} of them, this must be called from the thread which edits the
+     * chunks. When there aren't any worker threads, the requests are generated here first.
+     *
+     * @return The number of chunks published.
+     *
+     * @since 26.10.17
+     */
+    public static int publish()
+    {
+        int published = 0;
+
+        while ( published < PublishLimit )
+        {
+            Request request = finished.poll();
+
+            if ( ( request == null ) && !isEnabled() )
+            {
+                synchronized ( queue )
+                {
+                    request = queue.poll();
+                }
+
+                if ( request != null )
+                {
+                    generate( request );
+                }
+            }
+
+            if ( request == null )
+            {
+                break; // nothing else is ready
+            }
+
+            if ( request.cancelled || ( request.voxels == null ) )
+            {
+                continue; // cancelled, or the generator failed
+            }
+
+            request.chunk.setVoxels( request.voxels );
+            request.chunk.setModified( false ); // it can be generated again, so it doesn't need saving
+            request.voxels = null;
+            request.published = true;
+            published++;
+        }
+
+        return published;
+    }
+
+    /**
+     * Generates the voxels of a request into a detached stand-in for its chunk, this may be called from any thread.
+     *
+     * @param request
+     *         The request.
+     *
+     * @since 26.10.17
+     */
+    private static void generate( Request request )
+    {
+        if ( request.cancelled )
+        {
+            return;
+        }
+
+        Chunk c = request.chunk;
+
+        try
+        {
+            Chunk staging = new Chunk( c.region, c.x, c.y, c.z, new ArrayVoxelStorage(), true );
+            request.generator.generateChunk( staging );
+            request.voxels = staging.getVoxels();
+        }
+        catch ( Exception e )
+        {
+            request.failed = true; // it's never published, so its region mustn't keep waiting for it
+            Lumberjack.error( "Generation", "Failed to generate chunk (%d, %d, %d)", c.x, c.y, c.z );
+            Lumberjack.throwable( "Generation", e );
+        }
+    }
+
+    /**
+     * Starts worker threads until there are {@link #Threads} of them, the caller must hold the queue's lock.
+     *
+     * @since 26.10.17
+     */
+    private static void startWorkers()
+    {
+        while ( workers < Threads )
+        {
+            final int id = workers++;
+
+            Thread thread = new Thread( new Runnable()
+            {
+
+                @Override
+                public void run()
+                {
+                    Request request;
+                    while ( ( request = take( id ) ) != null )
+                    {
+                        generate( request );
+                        finished.add( request );
+                    }
+                }
+
+            }, "gvengine-generator-" + created.incrementAndGet() );
+
+            thread.setDaemon( true ); // generation never keeps the program alive
+            thread.start();
+        }
+    }
+
+    /**
+     * Waits for the nearest request, this is called by the worker threads.
+     *
+     * @param id
+     *         The id of the worker, workers whose id is no longer below {@link #Threads} stop.
+     *
+     * @return The request, or null if the worker should stop.
+     *
+     * @since 26.10.17
+     */
+    private static Request take( int id )
+    {
+        synchronized ( queue )
+        {
+            while ( true )
+            {
+                if ( id >= Threads )
+                {
+                    workers--;
+                    return null; // the pool has been shrunk
+                }
+
+                Request request = queue.poll();
+                if ( request != null )
+                {
+                    return request;
+                }
+
+                try
+                {
+                    queue.wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    workers--;
+                    return null;
+                }
+            }
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return If chunks are generated on worker threads rather than on the rendering thread.
+     *
+     * @since 26.10.17
+     */
+    public static boolean isEnabled()
+    {
+        return Threads > 0;
+    }
+
+    /**
+     * @return The number of requests which haven't been generated yet.
+     *
+     * @since 26.10.17
+     */
+    public static int getPendingCount()
+    {
+        synchronized ( queue )
+        {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Works out the order a chunk should be generated in, the caller must hold the queue's lock.
+     *
+     * @param c
+     *         The chunk.
+     *
+     * @return The squared distance from the camera to the center of the chunk, increased if the chunk is out of view. Lower is sooner.
+     *
+     * @since 26.10.17
+     */
+    private static double getPriority( Chunk c )
+    {
+        double dX = ( c.getGlobalX() + ( Chunk.LENGTH / 2.0 ) ) - cameraX;
+        double dY = ( c.getGlobalY() + ( Chunk.LENGTH / 2.0 ) ) - cameraY;
+        double dZ = ( c.getGlobalZ() + ( Chunk.LENGTH / 2.0 ) ) - cameraZ;
+        double distanceSquared = ( dX * dX ) + ( dY * dY ) + ( dZ * dZ );
+
+        if ( distanceSquared <= ( Chunk.LENGTH * Chunk.LENGTH ) )
+        {
+            return distanceSquared; // the chunks around the camera are always wanted
+        }
+
+        double facing = ( ( dX * direction[ 0 ] ) + ( dY * direction[ 1 ] ) + ( dZ * direction[ 2 ] ) ) / Math.sqrt( distanceSquared );
+        return facing < VIEW_COS ? distanceSquared * OUT_OF_VIEW_PENALTY : distanceSquared;
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * A chunk waiting to be generated.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    public static final class Request
+    {
+
+        /**
+         * The chunk being generated.
+         */
+        public final Chunk chunk;
+
+        /**
+         * The generator filling the chunk.
+         */
+        private final ChunkGenerator generator;
+
+        /**
+         * The order the request is generated in, lower is sooner.
+         */
+        private double priority;
+
+        /**
+         * If the request has been cancelled.
+         */
+        private volatile boolean cancelled = false;
+
+        /**
+         * If the voxels have been copied into the chunk.
+         */
+        private volatile boolean published = false;
+
+        /**
+         * If the generator threw an exception, so the request will never be published.
+         */
+        private volatile boolean failed = false;
+
+        /**
+         * The generated voxels, until they're published.
+         */
+        private volatile byte[] voxels = null;
+
+        /**
+         * @param chunk
+         *         The chunk being generated.
+         * @param generator
+         *         The generator filling the chunk.
+         *
+         * @since 26.10.17
+         */
+        private Request( Chunk chunk, ChunkGenerator generator )
+        {
+            this.chunk = chunk;
+            this.generator = generator;
+        }
+
+        /**
+         * Cancels the request, the chunk is left as it is. Requests which have already been published can't be cancelled.
+         *
+         * @since 26.10.17
+         */
+        public void cancel()
+        {
+            cancelled = true;
+            voxels = null;
+
+            synchronized ( queue )
+            {
+                queue.remove( this );
+            }
+        }
+
+        /**
+         * @return If the request has been cancelled.
+         *
+         * @since 26.10.17
+         */
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        /**
+         * @return If the generated voxels have been copied into the chunk.
+         *
+         * @since 26.10.17
+         */
+        public boolean isPublished()
+        {
+            return published;
+        }
+
+        /**
+         * @return If the generator failed, the chunk is left as it was and the request is never published.
+         *
+         * @since 26.10.17
+         */
+        public boolean isFailed()
+        {
+            return failed;
+        }
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Meshes a chunk by merging coplanar, visible faces of the same material into the largest rectangles possible, so a flat 16x16 surface becomes a single
+ * quad instead of 256 of them. Each thread keeps its own slice mask between rebuilds, so one mesher can be shared by every meshing thread.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class GreedyChunkMesher extends ChunkMesher
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The axis normal to each face (0 = x, 1 = y, 2 = z), ordered by the face's value.
+     */
+    private static final int[] NORMAL_AXIS = { 0, 0, 1, 1, 2, 2 };
+
+    /**
+     * The first axis of the plane each face lies on, ordered by the face's value.
+     */
+    private static final int[] U_AXIS = { 2, 2, 0, 0, 0, 0 };
+
+    /**
+     * The second axis of the plane each face lies on, ordered by the face's value.
+     */
+    private static final int[] V_AXIS = { 1, 1, 2, 2, 1, 1 };
+
+    //
+    // Fields
+    //
+
+    /**
+     * The scratch arrays of each thread using this mesher.
+     */
+    private final ThreadLocal< Scratch > scratch = new ThreadLocal< Scratch >()
+    {
+
+        @Override
+        protected Scratch initialValue()
+        {
+            return new Scratch();
+        }
+
+    };
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void buildMesh( ChunkSnapshot snapshot, MeshBuffer mesh, int minY, int maxY )
+    {
+        Scratch s = scratch.get();
+        int[] mask = s.mask;
+        int[] position = s.position;
+        int[] size = s.size;
+
+        for ( Face face : Face.VALUES )
+        {
+            int n = NORMAL_AXIS[ face.value ];
+            int u = U_AXIS[ face.value ];
+            int v = V_AXIS[ face.value ];
+            int bit = 1 << face.value; // the face's bit in the visibility masks
+
+            // the y axis is either the slice axis or the second axis of the plane, only the heights being meshed are visited along it
+            int minD = n == 1 ? minY : 0;
+            int maxD = n == 1 ? maxY : Chunk.LENGTH;
+            int minJ = v == 1 ? minY : 0;
+            int maxJ = v == 1 ? maxY : Chunk.LENGTH;
+
+            for ( int d = minD; d < maxD; d++ )
+            {
+                position[ n ] = d;
+
+                // find the visible faces in this slice
+                for ( int j = minJ; j < maxJ; j++ )
+                {
+                    for ( int i = 0; i < Chunk.LENGTH; i++ )
+                    {
+                        position[ u ] = i;
+                        position[ v ] = j;
+
+                        int local = position[ 0 ] + ( position[ 1 ] * Chunk.LENGTH ) + ( position[ 2 ] * Chunk.AREA );
+
+                        if ( ( snapshot.visibility[ local ] & bit ) != 0 )
+                        {
+                            // the material's index id, plus one so that 0 means there's no face
+                            mask[ i + ( j * Chunk.LENGTH ) ] = snapshot.voxels[ ChunkSnapshot.getIndex( position[ 0 ], position[ 1 ], position[ 2 ] ) ] + 129;
+                        }
+                        else
+                        {
+                            mask[ i + ( j * Chunk.LENGTH ) ] = 0;
+                        }
+                    }
+                }
+
+                // merge the faces into rectangles
+                for ( int j = minJ; j < maxJ; j++ )
+                {
+                    for ( int i = 0; i < Chunk.LENGTH; )
+                    {
+                        int id = mask[ i + ( j * Chunk.LENGTH ) ];
+
+                        if ( id == 0 )
+                        {
+                            i++;
+                            continue; // nothing to merge here
+                        }
+
+                        // grow the rectangle along the first axis
+                        int width = 1;
+                        while ( ( ( i + width ) < Chunk.LENGTH ) && ( mask[ i + width + ( j * Chunk.LENGTH ) ] == id ) )
+                        {
+                            width++;
+                        }
+
+                        // grow the rectangle along the second axis, as long as the entire row matches
+                        int height = 1;
+                        grow:
+                        while ( ( j + height ) < maxJ )
+                        {
+                            for ( int k = 0; k < width; k++ )
+                            {
+                                if ( mask[ i + k + ( ( j + height ) * Chunk.LENGTH ) ] != id )
+                                {
+                                    break grow;
+                                }
+                            }
+                            height++;
+                        }
+
+                        position[ u ] = i;
+                        position[ v ] = j;
+                        size[ n ] = 1;
+                        size[ u ] = width;
+                        size[ v ] = height;
+
+                        mesh.addFace( face, position[ 0 ], position[ 1 ], position[ 2 ], size[ 0 ], size[ 1 ], size[ 2 ], ( byte ) ( id - 1 - 128 ) );
+
+                        // clear the merged faces from the mask
+                        for ( int h = 0; h < height; h++ )
+                        {
+                            for ( int k = 0; k < width; k++ )
+                            {
+                                mask[ i + k + ( ( j + h ) * Chunk.LENGTH ) ] = 0;
+                            }
+                        }
+
+                        i += width;
+                    }
+                }
+            }
+        }
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * The arrays reused by a single thread between rebuilds.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class Scratch
+    {
+
+        /**
+         * The (material index + 1) of each visible face in the current slice, 0 if there is none.
+         */
+        public final int[] mask = new int[ Chunk.AREA ];
+
+        /**
+         * The local position of the voxel being checked.
+         */
+        public final int[] position = new int[ 3 ];
+
+        /**
+         * The size of the quad being created.
+         */
+        public final int[] size = new int[ 3 ];
+
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.github.obsidianarch.gvengine.core;
+
+import java.util.ArrayList;
+
+/**
+ * A hash map from primitive longs to objects, used to look up regions and chunks by their packed coordinates without boxing the keys. Entries are kept in
+ * parallel arrays with open addressing and linear probing, so a lookup is a multiply, a shift, and usually a single array read. Null values aren't
+ * allowed, as an empty slot is one with a null value.
+ *
+ * @param <V>
+ *         The type of the values.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class LongHashMap< V >
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The most entries the map holds for every slot before it grows, as a fraction.
+     */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The key in each slot.
+     */
+    private long[] keys;
+
+    /**
+     * The value in each slot, null if the slot is empty.
+     */
+    private Object[] values;
+
+    /**
+     * The number of entries in the map.
+     */
+    private int size = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates an empty map.
+     *
+     * @since 26.10.17
+     */
+    public LongHashMap()
+    {
+        this( 16 );
+    }
+
+    /**
+     * Creates an empty map with room for a number of entries before it has to grow.
+     *
+     * @param expected
+     *         The number of entries expected.
+     *
+     * @since 26.10.17
+     */
+    public LongHashMap( int expected )
+    {
+        int capacity = Integer.highestOneBit( Math.max( 2, ( int ) ( expected / LOAD_FACTOR ) ) - 1 ) << 1;
+
+        keys = new long[ capacity ];
+        values = new Object[ capacity ];
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Maps a key to a value, replacing the value it was mapped to.
+     *
+     * @param key
+     *         The key.
+     * @param value
+     *         The value, not null.
+     *
+     * @return The previous value of the key, or null if it didn't have one.
+     *
+     * @since 26.10.17
+     */
+    public V put( long key, V value )
+    {
+        if ( value == null )
+        {
+            throw new IllegalArgumentException( "LongHashMap can't hold null values" );
+        }
+
+        int slot = findSlot( key );
+        V previous = getValue( slot );
+
+        keys[ slot ] = key;
+        values[ slot ] = value;
+
+        if ( previous == null && ( ++size > ( values.length * LOAD_FACTOR ) ) )
+        {
+            resize( values.length * 2 );
+        }
+
+        return previous;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key
+     *         The key.
+     *
+     * @return The value the key was mapped to, or null if it wasn't in the map.
+     *
+     * @since 26.10.17
+     */
+    public V remove( long key )
+    {
+        int slot = findSlot( key );
+        V previous = getValue( slot );
+
+        if ( previous == null )
+        {
+            return null;
+        }
+
+        // shift the following entries of the probe back into the gap, so lookups never stop early at it
+        int mask = values.length - 1;
+        int gap = slot;
+
+        for ( int i = ( gap + 1 ) & mask; values[ i ] != null; i = ( i + 1 ) & mask )
+        {
+            int home = hash( keys[ i ] ) & mask;
+
+            // the entry can fill the gap only if the gap is between its home slot and where it is now
+            if ( ( ( i - home ) & mask ) >= ( ( i - gap ) & mask ) )
+            {
+                keys[ gap ] = keys[ i ];
+                values[ gap ] = values[ i ];
+                gap = i;
+            }
+        }
+
+        values[ gap ] = null;
+        size--;
+
+        return previous;
+    }
+
+    /**
+     * Removes every entry from the map.
+     *
+     * @since 26.10.17
+     */
+    public void clear()
+    {
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[ i ] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves every entry into new arrays.
+     *
+     * @param capacity
+     *         The number of slots in the new arrays, a power of two.
+     *
+     * @since 26.10.17
+     */
+    private void resize( int capacity )
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new long[ capacity ];
+        values = new Object[ capacity ];
+
+        for ( int i = 0; i < oldValues.length; i++ )
+        {
+            if ( oldValues[ i ] != null )
+            {
+                int slot = findSlot( oldKeys[ i ] );
+                keys[ slot ] = oldKeys[ i ];
+                values[ slot ] = oldValues[ i ];
+            }
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @param key
+     *         The key.
+     *
+     * @return The value of the key, or null if it isn't in the map.
+     *
+     * @since 26.10.17
+     */
+    public V get( long key )
+    {
+        return getValue( findSlot( key ) );
+    }
+
+    /**
+     * @param key
+     *         The key.
+     *
+     * @return If the key is in the map.
+     *
+     * @since 26.10.17
+     */
+    public boolean containsKey( long key )
+    {
+        return values[ findSlot( key ) ] != null;
+    }
+
+    /**
+     * @return The number of entries in the map.
+     *
+     * @since 26.10.17
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Copies the values in the map into a list, so the map can be changed while going through them.
+     *
+     * @return The values, in no particular order.
+     *
+     * @since 26.10.17
+     */
+    public ArrayList< V > values()
+    {
+        ArrayList< V > list = new ArrayList<>( size );
+
+        for ( int i = 0; i < values.length; i++ )
+        {
+            if ( values[ i ] != null )
+            {
+                list.add( getValue( i ) );
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot it would go in.
+     *
+     * @param key
+     *         The key.
+     *
+     * @return The index of the slot.
+     *
+     * @since 26.10.17
+     */
+    private int findSlot( long key )
+    {
+        int mask = values.length - 1;
+        int slot = hash( key ) & mask;
+
+        while ( ( values[ slot ] != null ) && ( keys[ slot ] != key ) )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * @param slot
+     *         The index of the slot.
+     *
+     * @return The value in the slot.
+     *
+     * @since 26.10.17
+     */
+    @SuppressWarnings( "unchecked" )
+    private V getValue( int slot )
+    {
+        return ( V ) values[ slot ];
+    }
+
+    /**
+     * Spreads the bits of a key, packed coordinates differ mostly in their low bits, which would otherwise pile up in the same slots.
+     *
+     * @param key
+     *         The key.
+     *
+     * @return The hash of the key.
+     *
+     * @since 26.10.17
+     */
+    private static int hash( long key )
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return ( int ) ( h ^ ( h >>> 32 ) );
+    }
+
+}
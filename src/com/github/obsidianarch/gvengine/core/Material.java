@@ -7,7 +7,7 @@ import org.lwjgl.util.ReadableColor;
  * The properties for a type of voxel.
  *
  * @author Austin
- * @version 14.03.30
+ * @version 26.10.17
  * @since 14.03.30
  */
 public class Material
@@ -22,6 +22,16 @@ public class Material
      */
     private static final Material[] materials = new Material[ 256 ];
 
+    /**
+     * If each material is active, one bit per material by its index id. Missing materials are inactive.
+     */
+    private static final long[] activeBits = new long[ 4 ];
+
+    /**
+     * The color of each material packed as {@code 0xRRGGBBAA}, by its index id. Missing materials are 0.
+     */
+    private static final int[] colors = new int[ 256 ];
+
     //
     // Constants
     //
@@ -94,6 +104,17 @@ public class Material
         indexID = byteID + 128;
 
         materials[ indexID ] = this; // add it to the materials array for lookup
+
+        // keep the side tables in step, so the properties can be looked up without going through the material
+        if ( active )
+        {
+            activeBits[ indexID >>> 6 ] |= 1L << indexID;
+        }
+        else
+        {
+            activeBits[ indexID >>> 6 ] &= ~( 1L << indexID );
+        }
+        colors[ indexID ] = ( color.getRed() << 24 ) | ( color.getGreen() << 16 ) | ( color.getBlue() << 8 ) | color.getAlpha();
     }
 
     //
@@ -113,4 +134,35 @@ public class Material
         return materials[ b + 128 ];
     }
 
+    /**
+     * Checks if a material is active without looking up the material, this is what the meshing and visibility loops should use.
+     *
+     * @param b
+     *         The byte id for the material.
+     *
+     * @return If the material exists and is active.
+     *
+     * @since 26.10.17
+     */
+    public static boolean isActive( byte b )
+    {
+        int index = b + 128;
+        return ( activeBits[ index >>> 6 ] & ( 1L << index ) ) != 0;
+    }
+
+    /**
+     * Finds the color of a material without looking up the material.
+     *
+     * @param b
+     *         The byte id for the material.
+     *
+     * @return The color packed as {@code 0xRRGGBBAA}, or 0 if the material doesn't exist.
+     *
+     * @since 26.10.17
+     */
+    public static int getColor( byte b )
+    {
+        return colors[ b + 128 ];
+    }
+
 }
@@ -0,0 +1,377 @@
+package com.github.obsidianarch.gvengine.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * A direct buffer of interleaved vertex data which meshers write into, in one of the {@link ChunkVertexFormat}s. The data can be handed straight to
+ * {@code glBufferData}, so there is no intermediate list and no second copy. Meshers always write positions local to the chunk and material ids, the buffer
+ * converts them into whichever format it was acquired for, relative to its origin. Every face is written as four vertices, which are drawn as indexed
+ * quads. Buffers are pooled, as they are only needed until their data has been sent to OpenGL.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class MeshBuffer
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The number of vertices a new buffer has room for.
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * The maximum number of buffers kept in the pool, any more than this are left for the garbage collector.
+     */
+    private static final int MAX_POOLED = 16;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The buffers which are not currently in use.
+     */
+    private static final ArrayList< MeshBuffer > pool = new ArrayList<>();
+
+    //
+    // Fields
+    //
+
+    /**
+     * The buffer the vertex data is written to.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The format the vertices are written in.
+     */
+    private ChunkVertexFormat format = ChunkVertexFormat.STANDARD;
+
+    /**
+     * The local x coordinate the vertices are written relative to.
+     */
+    private int originX = 0;
+
+    /**
+     * The local y coordinate the vertices are written relative to.
+     */
+    private int originY = 0;
+
+    /**
+     * The local z coordinate the vertices are written relative to.
+     */
+    private int originZ = 0;
+
+    /**
+     * The number of bytes which have been written to the buffer.
+     */
+    private int size = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new mesh buffer, {@link #acquire(ChunkVertexFormat)} should be used instead to reuse a pooled buffer.
+     *
+     * @since 26.10.17
+     */
+    public MeshBuffer()
+    {
+        buffer = ByteBuffer.allocateDirect( INITIAL_CAPACITY * ChunkVertexFormat.STANDARD.bytesPerVertex ).order( ByteOrder.nativeOrder() );
+    }
+
+    //
+    // Pooling
+    //
+
+    /**
+     * Takes an empty buffer from the pool, or creates one if the pool is empty.
+     *
+     * @param format
+     *         The format the vertices will be written in.
+     *
+     * @return An empty mesh buffer.
+     *
+     * @since 26.10.17
+     */
+    public static MeshBuffer acquire( ChunkVertexFormat format )
+    {
+        MeshBuffer mesh = null;
+
+        synchronized ( pool )
+        {
+            if ( !pool.isEmpty() )
+            {
+                mesh = pool.remove( pool.size() - 1 );
+            }
+        }
+
+        if ( mesh == null )
+        {
+            mesh = new MeshBuffer();
+        }
+
+        mesh.format = format;
+        mesh.setOrigin( 0, 0, 0 );
+        return mesh;
+    }
+
+    /**
+     * Clears this buffer and returns it to the pool. The buffer must not be used after it has been released.
+     *
+     * @since 26.10.17
+     */
+    public void release()
+    {
+        clear();
+
+        synchronized ( pool )
+        {
+            if ( pool.size() < MAX_POOLED )
+            {
+                pool.add( this );
+            }
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Removes all the vertices from this buffer, the buffer's capacity is kept.
+     *
+     * @since 26.10.17
+     */
+    public void clear()
+    {
+        size = 0;
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure the buffer can hold the given number of additional vertices, growing it if it can't.
+     *
+     * @param vertices
+     *         The number of vertices about to be written.
+     *
+     * @since 26.10.17
+     */
+    private void ensureCapacity( int vertices )
+    {
+        int required = size + ( vertices * format.bytesPerVertex );
+
+        if ( required <= buffer.capacity() )
+        {
+            return;
+        }
+
+        ByteBuffer grown = ByteBuffer.allocateDirect( Math.max( required, buffer.capacity() * 2 ) ).order( ByteOrder.nativeOrder() );
+
+        buffer.limit( size ).position( 0 );
+        grown.put( buffer );
+        grown.clear();
+
+        buffer = grown;
+    }
+
+    //
+    // Adders
+    //
+
+    /**
+     * Writes the four corners of a face's quad to the buffer, using the face's precomputed corners. The quads are drawn as triangles by the
+     * VertexBufferObject's shared quad index buffer.
+     *
+     * @param face
+     *         The face.
+     * @param x
+     *         The x coordinate of the face, local to the chunk.
+     * @param y
+     *         The y coordinate of the face, local to the chunk.
+     * @param z
+     *         The z coordinate of the face, local to the chunk.
+     * @param width
+     *         The number of voxels the face covers along the x axis.
+     * @param height
+     *         The number of voxels the face covers along the y axis.
+     * @param depth
+     *         The number of voxels the face covers along the z axis.
+     * @param material
+     *         The byte id of the face's material.
+     *
+     * @since 26.10.17
+     */
+    public void addFace( Face face, int x, int y, int z, int width, int height, int depth, byte material )
+    {
+        byte[] corners = face.quadCorners;
+
+        ensureCapacity( corners.length / 3 );
+
+        x -= originX;
+        y -= originY;
+        z -= originZ;
+
+        if ( format == ChunkVertexFormat.PACKED )
+        {
+            short attributes = ( short ) ( face.value | ( ( material + 128 ) << 3 ) ); // the palette is indexed like the materials array
+
+            for ( int i = 0; i < corners.length; i += 3 )
+            {
+                putPackedVertex( x + ( corners[ i ] * width ), y + ( corners[ i + 1 ] * height ), z + ( corners[ i + 2 ] * depth ), attributes );
+            }
+            return;
+        }
+
+        int color = Material.getColor( material );
+        float r = ( color >>> 24 ) / 255f;
+        float g = ( ( color >>> 16 ) & 0xFF ) / 255f;
+        float b = ( ( color >>> 8 ) & 0xFF ) / 255f;
+
+        for ( int i = 0; i < corners.length; i += 3 )
+        {
+            putVertex( x + ( corners[ i ] * width ), y + ( corners[ i + 1 ] * height ), z + ( corners[ i + 2 ] * depth ), r, g, b, face.offsetX, face.offsetY,
+                       face.offsetZ );
+        }
+    }
+
+    /**
+     * Writes a standard vertex into the buffer without checking the capacity.
+     *
+     * @param x
+     *         The x coordinate of the vertex.
+     * @param y
+     *         The y coordinate of the vertex.
+     * @param z
+     *         The z coordinate of the vertex.
+     * @param r
+     *         The red channel of the vertex's color.
+     * @param g
+     *         The green channel of the vertex's color.
+     * @param b
+     *         The blue channel of the vertex's color.
+     * @param nx
+     *         The x coordinate of the vertex's normal.
+     * @param ny
+     *         The y coordinate of the vertex's normal.
+     * @param nz
+     *         The z coordinate of the vertex's normal.
+     *
+     * @since 26.10.17
+     */
+    private void putVertex( float x, float y, float z, float r, float g, float b, float nx, float ny, float nz )
+    {
+        buffer.putFloat( size, x );
+        buffer.putFloat( size + 4, y );
+        buffer.putFloat( size + 8, z );
+        buffer.putFloat( size + 12, r );
+        buffer.putFloat( size + 16, g );
+        buffer.putFloat( size + 20, b );
+        buffer.putFloat( size + 24, nx );
+        buffer.putFloat( size + 28, ny );
+        buffer.putFloat( size + 32, nz );
+        size += ChunkVertexFormat.STANDARD.bytesPerVertex;
+    }
+
+    /**
+     * Writes a packed vertex into the buffer without checking the capacity.
+     *
+     * @param x
+     *         The local x coordinate of the vertex.
+     * @param y
+     *         The local y coordinate of the vertex.
+     * @param z
+     *         The local z coordinate of the vertex.
+     * @param attributes
+     *         The face and palette index of the vertex.
+     *
+     * @since 26.10.17
+     */
+    private void putPackedVertex( int x, int y, int z, short attributes )
+    {
+        buffer.putShort( size, ( short ) x );
+        buffer.putShort( size + 2, ( short ) y );
+        buffer.putShort( size + 4, ( short ) z );
+        buffer.putShort( size + 6, attributes );
+        size += ChunkVertexFormat.PACKED.bytesPerVertex;
+    }
+
+    //
+    // Setters
+    //
+
+    /**
+     * Sets the local position the vertices are written relative to, which is subtracted from every position the mesher writes. The mesh is moved back into
+     * place when it's drawn, so identical sections of different chunks produce identical meshes.
+     *
+     * @param x
+     *         The local x coordinate of the origin.
+     * @param y
+     *         The local y coordinate of the origin.
+     * @param z
+     *         The local z coordinate of the origin.
+     *
+     * @since 26.10.17
+     */
+    public void setOrigin( int x, int y, int z )
+    {
+        originX = x;
+        originY = y;
+        originZ = z;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Returns the written vertex data, ready to be passed to {@code glBufferData}. No more vertices should be added until the data has been used.
+     *
+     * @return The buffer, positioned at the first vertex and limited to the last.
+     *
+     * @since 26.10.17
+     */
+    public ByteBuffer getData()
+    {
+        buffer.limit( size ).position( 0 );
+        return buffer;
+    }
+
+    /**
+     * @return The number of vertices in this buffer.
+     *
+     * @since 26.10.17
+     */
+    public int getVertexCount()
+    {
+        return size / format.bytesPerVertex;
+    }
+
+    /**
+     * @return The format the vertices in this buffer are written in.
+     *
+     * @since 26.10.17
+     */
+    public ChunkVertexFormat getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * @return The number of bytes the vertices in this buffer take up.
+     *
+     * @since 26.10.17
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+}
@@ -0,0 +1,386 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.ToggleOption;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Shares the VBOs of identical meshes between chunks. Meshes are written relative to their section (or chunk, for reduced meshes) and moved into place
+ * when they're drawn, so any two sections whose voxels and touching neighbours are the same produce the same mesh, which is common with layered or
+ * repeating terrain. Meshes are keyed by a copy of every voxel which affects them, and each VBO is deleted once the last chunk drawing it lets go of it.
+ * Every method other than {@link #createKey(ChunkSnapshot, int, int, ChunkVertexFormat, ChunkMesher)} and {@link #contains(Key)} must be called from the
+ * OpenGL thread.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class MeshCache
+{
+
+    //
+    // Options
+    //
+
+    /**
+     * If identical meshes share a single VBO.
+     */
+    @Option( "Share identical meshes" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean Enabled = true;
+
+    //
+    // Static Fields
+    //
+
+    /**
+     * The shared meshes, by the voxels they were built from.
+     */
+    private static final HashMap< Key, Entry > entries = new HashMap<>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private MeshCache()
+    {
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Creates the key of a mesh about to be built from a snapshot, this only reads from the snapshot, so it may be called from any thread.
+     *
+     * @param snapshot
+     *         The snapshot the mesh is built from.
+     * @param minY
+     *         The lowest local y coordinate of the section being meshed.
+     * @param maxY
+     *         The local y coordinate above the highest layer of the section.
+     * @param format
+     *         The format the mesh is written in.
+     * @param mesher
+     *         The mesher building the mesh, or null if it's a reduced mesh.
+     *
+     * @return The key, or null if meshes aren't being shared.
+     *
+     * @since 26.10.17
+     */
+    public static Key createKey( ChunkSnapshot snapshot, int minY, int maxY, ChunkVertexFormat format, ChunkMesher mesher )
+    {
+        if ( !Enabled )
+        {
+            return null;
+        }
+
+        int lodLevel = snapshot.lodLevel;
+        byte[] data;
+
+        if ( lodLevel > 0 )
+        {
+            // reduced meshes only depend on the chunk's own voxels
+            data = new byte[ Chunk.VOLUME ];
+
+            int i = 0;
+            for ( int z = 0; z < Chunk.LENGTH; z++ )
+            {
+                for ( int y = 0; y < Chunk.LENGTH; y++ )
+                {
+                    System.arraycopy( snapshot.voxels, ChunkSnapshot.getIndex( 0, y, z ), data, i, Chunk.LENGTH );
+                    i += Chunk.LENGTH;
+                }
+            }
+        }
+        else
+        {
+            // the section's voxels, the layers above and below it, and the neighbours touching its sides
+            data = new byte[ ( ( maxY - minY ) * ( Chunk.AREA + ( Chunk.LENGTH * 4 ) ) ) + ( Chunk.AREA * 2 ) ];
+
+            int i = 0;
+            for ( int z = -1; z <= Chunk.LENGTH; z++ )
+            {
+                for ( int y = minY - 1; y <= maxY; y++ )
+                {
+                    for ( int x = -1; x <= Chunk.LENGTH; x++ )
+                    {
+                        if ( ( isOutside( x ) ? 1 : 0 ) + ( isOutside( y ) ? 1 : 0 ) + ( isOutside( z ) ? 1 : 0 ) > 1 )
+                        {
+                            continue; // the edges and corners of the snapshot aren't captured
+                        }
+
+                        if ( ( ( y < minY ) || ( y >= maxY ) ) && ( isOutside( x ) || isOutside( z ) ) )
+                        {
+                            continue; // not touching the section
+                        }
+
+                        data[ i++ ] = snapshot.voxels[ ChunkSnapshot.getIndex( x, y, z ) ];
+                    }
+                }
+            }
+        }
+
+        return new Key( data, lodLevel, format, mesher );
+    }
+
+    /**
+     * Finds a shared mesh and adds a reference to it.
+     *
+     * @param key
+     *         The key of the mesh.
+     *
+     * @return The shared mesh, or null if there isn't one for the key.
+     *
+     * @since 26.10.17
+     */
+    public static Entry acquire( Key key )
+    {
+        Entry entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( key );
+        }
+
+        if ( entry != null )
+        {
+            entry.references++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Adds a newly uploaded mesh to the cache, with a single reference held by the caller.
+     *
+     * @param key
+     *         The key the mesh was built from, or null if the mesh shouldn't be shared.
+     * @param vbo
+     *         The VBO the mesh was uploaded to.
+     *
+     * @return The entry of the mesh.
+     *
+     * @since 26.10.17
+     */
+    public static Entry add( Key key, VertexBufferObject vbo )
+    {
+        Entry entry = new Entry( key, vbo );
+
+        if ( key != null )
+        {
+            synchronized ( entries )
+            {
+                entries.put( key, entry );
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Removes a reference to a mesh, deleting its VBO if it was the last one.
+     *
+     * @param entry
+     *         The mesh, may be null.
+     *
+     * @since 26.10.17
+     */
+    public static void release( Entry entry )
+    {
+        if ( ( entry == null ) || ( --entry.references > 0 ) )
+        {
+            return;
+        }
+
+        if ( entry.key != null )
+        {
+            synchronized ( entries )
+            {
+                entries.remove( entry.key );
+            }
+        }
+
+        entry.vbo.delete();
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Checks if a mesh is in the cache, this may be called from any thread. The mesh may still be removed before it's acquired.
+     *
+     * @param key
+     *         The key of the mesh, may be null.
+     *
+     * @return If the mesh is cached.
+     *
+     * @since 26.10.17
+     */
+    public static boolean contains( Key key )
+    {
+        if ( key == null )
+        {
+            return false;
+        }
+
+        synchronized ( entries )
+        {
+            return entries.containsKey( key );
+        }
+    }
+
+    /**
+     * @return The number of meshes being shared.
+     *
+     * @since 26.10.17
+     */
+    public static int size()
+    {
+        synchronized ( entries )
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @param i
+     *         A local coordinate.
+     *
+     * @return If the coordinate is in one of the neighbouring chunks.
+     *
+     * @since 26.10.17
+     */
+    private static boolean isOutside( int i )
+    {
+        return ( i < 0 ) || ( i >= Chunk.LENGTH );
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * Identifies a mesh by everything it was built from.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    public static final class Key
+    {
+
+        /**
+         * The voxels the mesh was built from.
+         */
+        private final byte[] data;
+
+        /**
+         * The level of detail of the mesh, 0 for section meshes.
+         */
+        private final int lodLevel;
+
+        /**
+         * The format of the mesh.
+         */
+        private final ChunkVertexFormat format;
+
+        /**
+         * The mesher which built the mesh.
+         */
+        private final ChunkMesher mesher;
+
+        /**
+         * The hash of the key, computed once as keys are compared many times.
+         */
+        private final int hash;
+
+        /**
+         * @param data
+         *         The voxels the mesh was built from.
+         * @param lodLevel
+         *         The level of detail of the mesh.
+         * @param format
+         *         The format of the mesh.
+         * @param mesher
+         *         The mesher which built the mesh.
+         *
+         * @since 26.10.17
+         */
+        private Key( byte[] data, int lodLevel, ChunkVertexFormat format, ChunkMesher mesher )
+        {
+            this.data = data;
+            this.lodLevel = lodLevel;
+            this.format = format;
+            this.mesher = mesher;
+
+            hash = ( ( ( Arrays.hashCode( data ) * 31 ) + lodLevel ) * 31 ) + format.ordinal();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( !( o instanceof Key ) )
+            {
+                return false;
+            }
+
+            Key other = ( Key ) o;
+            return ( hash == other.hash ) && ( lodLevel == other.lodLevel ) && ( format == other.format ) && ( mesher == other.mesher ) &&
+                   Arrays.equals( data, other.data );
+        }
+
+    }
+
+    /**
+     * A VBO shared by every chunk section drawing the same mesh.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    public static final class Entry
+    {
+
+        /**
+         * The key of the mesh, null if it isn't shared.
+         */
+        private final Key key;
+
+        /**
+         * The VBO the mesh was uploaded to.
+         */
+        public final VertexBufferObject vbo;
+
+        /**
+         * The number of chunk sections using the mesh.
+         */
+        private int references = 1;
+
+        /**
+         * @param key
+         *         The key of the mesh.
+         * @param vbo
+         *         The VBO the mesh was uploaded to.
+         *
+         * @since 26.10.17
+         */
+        private Entry( Key key, VertexBufferObject vbo )
+        {
+            this.key = key;
+            this.vbo = vbo;
+        }
+
+    }
+
+}
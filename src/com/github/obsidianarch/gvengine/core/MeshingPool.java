@@ -0,0 +1,174 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.io.Lumberjack;
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of worker threads which build the CPU side of chunk meshes. The finished meshes are handed back to the chunks, which send them to OpenGL the next
+ * time they are rendered, so only the {@code glBufferData} call happens on the rendering thread.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public final class MeshingPool
+{
+
+    //
+    // Options
+    //
+
+    /**
+     * The number of threads meshing chunks, when 0 chunks are meshed on the rendering thread by the Scheduler instead.
+     */
+    @Option( "Meshing threads" )
+    @SliderOption( minimum = 0, maximum = 64 )
+    public static int Threads = Math.max( 1, Runtime.getRuntime().availableProcessors() - 1 );
+
+    //
+    // Fields
+    //
+
+    /**
+     * The executor running the meshing tasks.
+     */
+    private static ExecutorService executor = null;
+
+    /**
+     * The number of threads the current executor was created with.
+     */
+    private static int executorThreads = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Hides the constructor.
+     *
+     * @since 26.10.17
+     */
+    private MeshingPool()
+    {
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Builds the mesh data for the chunk on one of the worker threads.
+     *
+     * @param c
+     *         The chunk to mesh.
+     * @param snapshot
+     *         The snapshot of the chunk, taken on the thread which edits the chunks.
+     *
+     * @since 26.10.17
+     */
+    public static void submit( final Chunk c, final ChunkSnapshot snapshot )
+    {
+        getExecutor().execute( new Runnable()
+        {
+
+            @Override
+            public void run()
+            {
+                try
+                {
+                    c.buildMeshData( snapshot );
+                }
+                catch ( Exception e )
+                {
+                    Lumberjack.error( "Meshing", "Failed to mesh chunk (%d, %d, %d)", c.x, c.y, c.z );
+                    Lumberjack.throwable( "Meshing", e );
+                }
+            }
+
+        } );
+    }
+
+    /**
+     * Stops the worker threads once the meshes that have already been submitted are finished. The pool is restarted if another chunk is submitted.
+     *
+     * @since 26.10.17
+     */
+    public static synchronized void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return If chunks should be submitted to the pool rather than meshed on the rendering thread.
+     *
+     * @since 26.10.17
+     */
+    public static boolean isEnabled()
+    {
+        return Threads > 0;
+    }
+
+    /**
+     * Returns the executor, creating it again if the number of threads has changed.
+     *
+     * @return The executor which runs the meshing tasks.
+     *
+     * @since 26.10.17
+     */
+    private static synchronized ExecutorService getExecutor()
+    {
+        int threads = Math.max( 1, Threads );
+
+        if ( ( executor == null ) || ( executorThreads != threads ) )
+        {
+            shutdown();
+
+            executor = Executors.newFixedThreadPool( threads, new MesherThreadFactory() );
+            executorThreads = threads;
+        }
+
+        return executor;
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * Creates the daemon threads used by the pool, so meshing never keeps the program alive.
+     *
+     * @version 26.10.17
+     * @since 26.10.17
+     */
+    private static class MesherThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The number of threads created so far, used for naming them.
+         */
+        private static final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable r )
+        {
+            Thread thread = new Thread( r, "gvengine-mesher-" + created.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,282 @@
+package com.github.obsidianarch.gvengine.core;
+
+/**
+ * Stores the voxels as indices into a palette of the materials used by the chunk, packed into as few bits as the palette needs. A chunk made of a single
+ * material needs no bits at all, two materials need one bit per voxel, up to four need two, up to sixteen need four, and any more are stored as a full
+ * byte. The palette grows, and the indices are repacked into a wider width, as new materials are set. The number of voxels using each entry is counted, so
+ * entries which are no longer used are reused before the palette grows.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class PaletteVoxelStorage extends VoxelStorage
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The widths the indices can be packed into, a width always divides 64 so an index never spans two longs.
+     */
+    private static final int[] WIDTHS = { 0, 1, 2, 4, 8 };
+
+    //
+    // Fields
+    //
+
+    /**
+     * The material id of each palette entry.
+     */
+    private byte[] palette = new byte[ 1 ];
+
+    /**
+     * The number of voxels using each palette entry.
+     */
+    private int[] counts = new int[ 1 ];
+
+    /**
+     * The number of entries in the palette.
+     */
+    private int paletteSize = 1;
+
+    /**
+     * The number of bits each index is packed into.
+     */
+    private int bits = 0;
+
+    /**
+     * The packed palette indices of the voxels.
+     */
+    private long[] data = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a storage where every voxel is air.
+     *
+     * @since 26.10.17
+     */
+    public PaletteVoxelStorage()
+    {
+        palette[ 0 ] = 0;
+        counts[ 0 ] = Chunk.VOLUME;
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public byte get( int index )
+    {
+        if ( bits == 0 )
+        {
+            return palette[ 0 ];
+        }
+
+        return palette[ getIndex( index ) ];
+    }
+
+    @Override
+    public void set( int index, byte b )
+    {
+        int previous = bits == 0 ? 0 : getIndex( index );
+        if ( palette[ previous ] == b )
+        {
+            return;
+        }
+
+        int entry = getEntry( b );
+
+        counts[ previous ]--;
+        counts[ entry ]++;
+
+        setIndex( index, entry );
+    }
+
+    @Override
+    public void copyTo( int index, byte[] dest, int destIndex, int length )
+    {
+        if ( bits == 0 )
+        {
+            byte b = palette[ 0 ];
+            for ( int i = 0; i < length; i++ )
+            {
+                dest[ destIndex + i ] = b;
+            }
+            return;
+        }
+
+        for ( int i = 0; i < length; i++ )
+        {
+            dest[ destIndex + i ] = palette[ getIndex( index + i ) ];
+        }
+    }
+
+    @Override
+    public int getMemoryUsage()
+    {
+        return ( ( data == null ? 0 : data.length ) * 8 ) + palette.length + ( counts.length * 4 );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Finds the palette entry of a material, adding it to the palette if it isn't already there.
+     *
+     * @param b
+     *         The byte id of the material.
+     *
+     * @return The index of the material's entry.
+     *
+     * @since 26.10.17
+     */
+    private int getEntry( byte b )
+    {
+        int unused = -1;
+
+        for ( int i = 0; i < paletteSize; i++ )
+        {
+            if ( palette[ i ] == b )
+            {
+                return i;
+            }
+            if ( ( unused == -1 ) && ( counts[ i ] == 0 ) )
+            {
+                unused = i;
+            }
+        }
+
+        if ( unused != -1 )
+        {
+            palette[ unused ] = b; // no voxel refers to this entry anymore, so it can be given to the new material
+            return unused;
+        }
+
+        if ( paletteSize == ( 1 << bits ) )
+        {
+            resize( WIDTHS[ getWidthIndex() + 1 ] );
+        }
+
+        if ( paletteSize == palette.length )
+        {
+            int capacity = Math.min( palette.length * 2, 256 );
+
+            byte[] grownPalette = new byte[ capacity ];
+            System.arraycopy( palette, 0, grownPalette, 0, paletteSize );
+            palette = grownPalette;
+
+            int[] grownCounts = new int[ capacity ];
+            System.arraycopy( counts, 0, grownCounts, 0, paletteSize );
+            counts = grownCounts;
+        }
+
+        palette[ paletteSize ] = b;
+        return paletteSize++;
+    }
+
+    /**
+     * Repacks the indices into a new width.
+     *
+     * @param newBits
+     *         The new number of bits per index.
+     *
+     * @since 26.10.17
+     */
+    private void resize( int newBits )
+    {
+        long[] newData = new long[ ( Chunk.VOLUME * newBits ) / 64 ];
+        long mask = ( 1L << newBits ) - 1;
+
+        for ( int i = 0; i < Chunk.VOLUME; i++ )
+        {
+            long value = bits == 0 ? 0 : getIndex( i );
+            int bit = i * newBits;
+            newData[ bit >>> 6 ] |= ( value & mask ) << ( bit & 63 );
+        }
+
+        data = newData;
+        bits = newBits;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @param index
+     *         The index of the voxel.
+     *
+     * @return The voxel's palette index, the width must not be 0.
+     *
+     * @since 26.10.17
+     */
+    private int getIndex( int index )
+    {
+        int bit = index * bits;
+        return ( int ) ( data[ bit >>> 6 ] >>> ( bit & 63 ) ) & ( ( 1 << bits ) - 1 );
+    }
+
+    /**
+     * Sets a voxel's palette index.
+     *
+     * @param index
+     *         The index of the voxel.
+     * @param entry
+     *         The palette index.
+     *
+     * @since 26.10.17
+     */
+    private void setIndex( int index, int entry )
+    {
+        int bit = index * bits;
+        int shift = bit & 63;
+        long mask = ( ( 1L << bits ) - 1 ) << shift;
+
+        data[ bit >>> 6 ] = ( data[ bit >>> 6 ] & ~mask ) | ( ( ( long ) entry << shift ) & mask );
+    }
+
+    /**
+     * @return The position of the current width in {@link #WIDTHS}.
+     *
+     * @since 26.10.17
+     */
+    private int getWidthIndex()
+    {
+        for ( int i = 0; i < WIDTHS.length; i++ )
+        {
+            if ( WIDTHS[ i ] == bits )
+            {
+                return i;
+            }
+        }
+
+        return WIDTHS.length - 1;
+    }
+
+    /**
+     * @return The number of bits each voxel is packed into.
+     *
+     * @since 26.10.17
+     */
+    public int getBitsPerVoxel()
+    {
+        return bits;
+    }
+
+    /**
+     * @return The number of materials in the palette, including entries which are no longer used.
+     *
+     * @since 26.10.17
+     */
+    public int getPaletteSize()
+    {
+        return paletteSize;
+    }
+
+}
@@ -1,12 +1,22 @@
 package com.github.obsidianarch.gvengine.core;
 
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.ToggleOption;
+import com.github.obsidianarch.gvengine.core.shaders.ChunkShader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import static com.github.obsidianarch.gvengine.core.MathHelper.inRange;
 
 /**
- * A LENGTH x LENGTH x LENGTH container of Chunks.
+ * A LENGTH x LENGTH x LENGTH container of Chunks. Regions may be part of a {@link World}, in which case chunks past the region's borders are found in the
+ * neighbouring regions. Chunks are created when they're first asked for, or first reached while rendering, and generated then, so a region only holds the
+ * chunks which have actually been visited.
  *
  * @author Austin
- * @version 14.10.26
+ * @version 26.10.17
  * @since 14.03.30
  */
 public class Region
@@ -31,14 +41,32 @@ public class Region
      */
     public static final int VOLUME = AREA * LENGTH;
 
+    //
+    // Options
+    //
+
+    /**
+     * If new regions keep their voxels in a single direct buffer off of the heap, which each chunk stores its voxels in a slot of.
+     */
+    @Option( "Off-heap voxels" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean OffHeap = false;
+
+    /**
+     * If new regions create their chunks when they're first needed, rather than all at once.
+     */
+    @Option( "Lazy chunks" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean Lazy = true;
+
     //
     // Fields
     //
 
     /**
-     * An array of all the chunks in this region.
+     * An array of all the chunks in this region, null where a chunk hasn't been created yet.
      */
-    public Chunk[] chunks = new Chunk[ VOLUME ];
+    private final Chunk[] chunks = new Chunk[ VOLUME ];
 
     /**
      * The region's x coordinate.
@@ -55,11 +83,57 @@ public class Region
      */
     public final int z;
 
+    /**
+     * The world this region is a part of, or null if it stands alone.
+     */
+    public final World world;
+
     /**
      * Responsible for generating every chunk in this region.
      */
     private final ChunkGenerator generator;
 
+    /**
+     * If this region keeps its voxels off of the heap.
+     */
+    private final boolean offHeap;
+
+    /**
+     * The voxels of every chunk in this region, one chunk after another in the same order as {@link #chunks}, or null if the chunks store their own or none
+     * have been created yet.
+     */
+    private ByteBuffer voxelData = null;
+
+    /**
+     * If {@link #rebuild()} has been called, so chunks created afterwards are meshed as well.
+     */
+    private boolean meshed = false;
+
+    /**
+     * The generation requested for each chunk, in the same order as {@link #chunks}, null where none was requested.
+     */
+    private final GenerationPool.Request[] requests = new GenerationPool.Request[ VOLUME ];
+
+    /**
+     * The chunks waiting to be visited by the visibility search, in the order they were reached.
+     */
+    private final int[] searchQueue = new int[ VOLUME ];
+
+    /**
+     * The face each queued chunk was entered through, or -1 if the search started inside of it.
+     */
+    private final int[] searchEntry = new int[ VOLUME ];
+
+    /**
+     * The directions the search has travelled to reach each queued chunk, one bit per face.
+     */
+    private final int[] searchDirections = new int[ VOLUME ];
+
+    /**
+     * If each chunk has been reached by the visibility search.
+     */
+    private final boolean[] searchVisited = new boolean[ VOLUME ];
+
     //
     // Constructors
     //
@@ -80,26 +154,42 @@ public class Region
      */
     public Region( ChunkGenerator generator, int x, int y, int z )
     {
+        this( null, generator, x, y, z );
+    }
+
+    /**
+     * Creates a new region as part of a world. Chunks of a world's region are generated by the GenerationPool when they're reached while rendering, without
+     * holding up the caller.
+     *
+     * @param world
+     *         The world the region is a part of, or null if it stands alone.
+     * @param generator
+     *         The chunk generator used to generate this region's chunks.
+     * @param x
+     *         The x coordinate of the region in the region grid.
+     * @param y
+     *         The y coordinate of the region in the region grid.
+     * @param z
+     *         The z coordinate of the region in the region grid.
+     *
+     * @since 26.10.17
+     */
+    public Region( World world, ChunkGenerator generator, int x, int y, int z )
+    {
+        this.world = world;
         this.generator = generator;
 
         this.x = x;
         this.y = y;
         this.z = z;
 
-        for ( int cX = 0; cX < LENGTH; cX++ )
+        offHeap = OffHeap;
+
+        if ( !Lazy )
         {
-            for ( int cY = 0; cY < LENGTH; cY++ )
+            for ( int i = 0; i < VOLUME; i++ )
             {
-                for ( int cZ = 0; cZ < LENGTH; cZ++ )
-                {
-                    Chunk c = new Chunk( this, cX, cY, cZ ); // create the chunk
-                    generator.generateChunk( c ); // generate teh chunk's voxels
-
-                    int index = cX;
-                    index += cY * LENGTH;
-                    index += cZ * 16;
-                    chunks[ index ] = c; // add the chunk to the region
-                }
+                prepareChunk( i ); // create every chunk up front
             }
         }
     }
@@ -109,50 +199,598 @@ public class Region
     //
 
     /**
-     * Regenerates all chunks based on the current seed.
+     * Creates an empty chunk for a position in this region, without adding it to the region. If this region keeps its voxels off of the heap, the chunk
+     * stores its voxels in the position's slot, which is cleared, so the position mustn't hold a chunk yet. Chunks already in the region should be
+     * filled in with {@link Chunk#setVoxels(byte[])} instead.
+     *
+     * @param cX
+     *         The chunk's x coordinate.
+     * @param cY
+     *         The chunk's y coordinate.
+     * @param cZ
+     *         The chunk's z coordinate.
+     *
+     * @return The new chunk.
+     *
+     * @throws IllegalStateException
+     *         If this region keeps its voxels off of the heap, and the position's slot is still used by a chunk.
+     * @since 26.10.17
+     */
+    public Chunk createChunk( int cX, int cY, int cZ )
+    {
+        if ( !offHeap )
+        {
+            return new Chunk( this, cX, cY, cZ );
+        }
+
+        if ( voxelData == null )
+        {
+            voxelData = ByteBuffer.allocateDirect( VOLUME * Chunk.VOLUME ); // allocated with the first chunk
+        }
+
+        int index = cX + ( cY * LENGTH ) + ( cZ * AREA );
+        if ( chunks[ index ] != null )
+        {
+            throw new IllegalStateException( String.format( "Chunk (%d, %d, %d) still stores its voxels in its slot", cX, cY, cZ ) );
+        }
+
+        return new Chunk( this, cX, cY, cZ, new DirectVoxelStorage( voxelData, index * Chunk.VOLUME ) );
+    }
+
+    /**
+     * Creates the chunk at an index and adds it to this region, unless it already has been. Chunks evicted by the world's ChunkCache are loaded back, the
+     * rest of a standalone region's chunks are generated at once, while those of a world's region are handed to the GenerationPool, and only meshed once
+     * they've been generated.
+     *
+     * @param index
+     *         The index of the chunk.
+     *
+     * @return The chunk.
+     *
+     * @since 26.10.17
+     */
+    private Chunk prepareChunk( int index )
+    {
+        Chunk c = chunks[ index ];
+
+        if ( c == null )
+        {
+            c = createChunk( index % LENGTH, ( index / LENGTH ) % LENGTH, index / AREA );
+            addChunk( index, c ); // added first, so its neighbours see it as it's filled in
+
+            if ( !restore( c ) )
+            {
+                if ( world != null )
+                {
+                    requests[ index ] = GenerationPool.submit( c, generator );
+                    return c; // meshed once it's been published
+                }
+
+                generate( c );
+            }
+        }
+        else if ( ( requests[ index ] == null ) || ( !requests[ index ].isPublished() && !requests[ index ].isFailed() ) )
+        {
+            return c; // already meshed, or still waiting for its voxels
+        }
+
+        requests[ index ] = null;
+        if ( meshed )
+        {
+            c.scheduleRebuild();
+        }
+
+        return c;
+    }
+
+    /**
+     * Generates a chunk's voxels right away, on this thread.
+     *
+     * @param c
+     *         The chunk to generate.
+     *
+     * @since 26.10.17
+     */
+    private void generate( Chunk c )
+    {
+        Chunk staging = new Chunk( this, c.x, c.y, c.z, new ArrayVoxelStorage(), true ); // so the neighbours are updated once, not for every voxel
+        generator.generateChunk( staging );
+        c.setVoxels( staging.getVoxels() );
+        c.setModified( false ); // it can be generated again, so it doesn't need saving
+    }
+
+    /**
+     * Loads a chunk's voxels back from the world's ChunkCache, if it was evicted.
+     *
+     * @param c
+     *         The new chunk.
+     *
+     * @return If the chunk was loaded, if not it must be generated.
+     *
+     * @since 26.10.17
+     */
+    private boolean restore( Chunk c )
+    {
+        return ( world != null ) && world.getCache().restore( c );
+    }
+
+    /**
+     * Puts a chunk in its slot, and lets the world's ChunkCache know it's in memory.
+     *
+     * @param index
+     *         The index of the chunk.
+     * @param c
+     *         The chunk.
+     *
+     * @since 26.10.17
+     */
+    private void addChunk( int index, Chunk c )
+    {
+        chunks[ index ] = c;
+
+        if ( world != null )
+        {
+            world.getCache().add( c );
+        }
+    }
+
+    /**
+     * Takes a chunk out of this region and deletes its meshes, the next time its position is asked for a new chunk is created. This is how the ChunkCache
+     * evicts chunks, after saving them. The neighbouring chunks now face air, so they recalculate their visibility masks and are rebuilt, just as
+     * {@link World#unloadRegion(int, int, int)} does for whole regions. When the chunk is loaded back, its voxels are set through
+     * {@link Chunk#setVoxels(byte[])}, which updates the neighbours again.
+     *
+     * @param c
+     *         The chunk.
+     *
+     * @since 26.10.17
+     */
+    void removeChunk( Chunk c )
+    {
+        int index = c.x + ( c.y * LENGTH ) + ( c.z * AREA );
+
+        if ( chunks[ index ] != c )
+        {
+            return; // it has already been replaced
+        }
+
+        c.unload();
+        chunks[ index ] = null;
+        requests[ index ] = null;
+
+        if ( ( world == null ) || ( world.getRegion( x, y, z ) != this ) )
+        {
+            return; // the whole region is being unloaded, which refreshes the neighbouring regions' borders itself
+        }
+
+        for ( Face face : Face.VALUES )
+        {
+            Chunk neighbour = findChunkAt( c.x + face.offsetX, c.y + face.offsetY, c.z + face.offsetZ );
+            if ( neighbour != null )
+            {
+                neighbour.refreshVisibility();
+            }
+        }
+    }
+
+    /**
+     * Replaces the chunk at a chunk's position with it, cancelling any generation still pending for the old chunk. The old chunk is unloaded, so its
+     * meshes are deleted, this must be called from the OpenGL thread. Setting the chunk already at the position only cancels its generation.
+     *
+     * @param c
+     *         The chunk, which must belong to this region.
+     *
+     * @since 26.10.17
+     */
+    public void setChunk( Chunk c )
+    {
+        int index = c.x + ( c.y * LENGTH ) + ( c.z * AREA );
+
+        if ( requests[ index ] != null )
+        {
+            requests[ index ].cancel();
+            requests[ index ] = null;
+        }
+
+        Chunk old = chunks[ index ];
+        if ( old == c )
+        {
+            return;
+        }
+
+        if ( old != null )
+        {
+            old.unload();
+
+            if ( world != null )
+            {
+                world.getCache().remove( old );
+            }
+        }
+
+        addChunk( index, c );
+    }
+
+    /**
+     * Regenerates the chunks which have been created based on the current seed, the rest are generated whenever they're created. The chunks are
+     * generated by the GenerationPool, nearest to the camera first, and replaced once {@link GenerationPool#publish()} is called. Any generation still
+     * pending from an earlier call is cancelled.
      *
      * @since 14.03.30
      */
     public void regenerate()
     {
-        for ( Chunk c : chunks )
+        cancelGeneration();
+
+        for ( int i = 0; i < VOLUME; i++ )
         {
-            Scheduler.enqueueEvent( "generateChunk", generator, c );
+            if ( chunks[ i ] != null )
+            {
+                requests[ i ] = GenerationPool.submit( chunks[ i ], generator );
+            }
+        }
+    }
+
+    /**
+     * Cancels the generation of any chunks which haven't been replaced yet, they're left as they are.
+     *
+     * @since 26.10.17
+     */
+    public void cancelGeneration()
+    {
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            if ( requests[ i ] != null )
+            {
+                requests[ i ].cancel();
+                requests[ i ] = null;
+            }
         }
     }
 
     /**
-     * Schedules rebuilds for every chunk in this region.
+     * Schedules rebuilds for every chunk in this region, when the MeshingPool is enabled they are built in parallel. Chunks created later, or still
+     * waiting to be generated, are rebuilt once their voxels are ready.
      *
      * @since 14.03.30
      */
     public void rebuild()
     {
-        for ( Chunk c : chunks )
+        meshed = true;
+
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            if ( ( chunks[ i ] != null ) && ( requests[ i ] == null ) )
+            {
+                chunks[ i ].scheduleRebuild();
+            }
+        }
+    }
+
+    /**
+     * Fills a box of voxels with a material, each chunk the box overlaps is created if it hasn't been, then changed at once and rebuilt once.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param minX
+     *         The lowest x coordinate of the box in this region (inclusive).
+     * @param minY
+     *         The lowest y coordinate of the box in this region (inclusive).
+     * @param minZ
+     *         The lowest z coordinate of the box in this region (inclusive).
+     * @param maxX
+     *         The highest x coordinate of the box in this region (exclusive).
+     * @param maxY
+     *         The highest y coordinate of the box in this region (exclusive).
+     * @param maxZ
+     *         The highest z coordinate of the box in this region (exclusive).
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int fillBox( byte b, int minX, int minY, int minZ, int maxX, int maxY, int maxZ )
+    {
+        int changed = 0;
+
+        for ( int cX = Math.max( 0, Math.floorDiv( minX, Chunk.LENGTH ) ); cX <= Math.min( LENGTH - 1, Math.floorDiv( maxX - 1, Chunk.LENGTH ) ); cX++ )
+        {
+            for ( int cY = Math.max( 0, Math.floorDiv( minY, Chunk.LENGTH ) ); cY <= Math.min( LENGTH - 1, Math.floorDiv( maxY - 1, Chunk.LENGTH ) ); cY++ )
+            {
+                for ( int cZ = Math.max( 0, Math.floorDiv( minZ, Chunk.LENGTH ) ); cZ <= Math.min( LENGTH - 1, Math.floorDiv( maxZ - 1, Chunk.LENGTH ) ); cZ++ )
+                {
+                    int oX = cX * Chunk.LENGTH;
+                    int oY = cY * Chunk.LENGTH;
+                    int oZ = cZ * Chunk.LENGTH;
+
+                    changed += getChunkAt( cX, cY, cZ ).fillBox( b, minX - oX, minY - oY, minZ - oZ, maxX - oX, maxY - oY, maxZ - oZ );
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Fills a sphere of voxels with a material, each chunk the sphere's bounds overlap is created if it hasn't been, then changed at once and rebuilt once.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param centerX
+     *         The x coordinate of the sphere's center in this region.
+     * @param centerY
+     *         The y coordinate of the sphere's center in this region.
+     * @param centerZ
+     *         The z coordinate of the sphere's center in this region.
+     * @param radius
+     *         The radius of the sphere, in voxels.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int fillSphere( byte b, double centerX, double centerY, double centerZ, double radius )
+    {
+        int changed = 0;
+
+        int minX = Math.max( 0, ( int ) Math.floor( ( centerX - radius ) / Chunk.LENGTH ) );
+        int minY = Math.max( 0, ( int ) Math.floor( ( centerY - radius ) / Chunk.LENGTH ) );
+        int minZ = Math.max( 0, ( int ) Math.floor( ( centerZ - radius ) / Chunk.LENGTH ) );
+        int maxX = Math.min( LENGTH - 1, ( int ) Math.floor( ( centerX + radius ) / Chunk.LENGTH ) );
+        int maxY = Math.min( LENGTH - 1, ( int ) Math.floor( ( centerY + radius ) / Chunk.LENGTH ) );
+        int maxZ = Math.min( LENGTH - 1, ( int ) Math.floor( ( centerZ + radius ) / Chunk.LENGTH ) );
+
+        for ( int cX = minX; cX <= maxX; cX++ )
+        {
+            for ( int cY = minY; cY <= maxY; cY++ )
+            {
+                for ( int cZ = minZ; cZ <= maxZ; cZ++ )
+                {
+                    int oX = cX * Chunk.LENGTH;
+                    int oY = cY * Chunk.LENGTH;
+                    int oZ = cZ * Chunk.LENGTH;
+
+                    changed += getChunkAt( cX, cY, cZ ).fillSphere( b, centerX - oX, centerY - oY, centerZ - oZ, radius );
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Replaces every voxel of one material with another, throughout the region. Every chunk is created, as those which haven't been could hold the
+     * material once they're generated.
+     *
+     * @param from
+     *         The byte id of the material to replace.
+     * @param to
+     *         The byte id of the material to replace it with.
+     *
+     * @return The number of voxels which changed.
+     *
+     * @since 26.10.17
+     */
+    public int replaceMaterial( byte from, byte to )
+    {
+        int changed = 0;
+
+        for ( Chunk c : getChunks() )
         {
-            Scheduler.enqueueEvent( "buildMesh", c );
+            changed += c.replaceMaterial( from, to );
         }
+
+        return changed;
     }
 
     /**
-     * Renders every chunk in this region.
+     * Recalculates the visibility masks of the chunks on one side of this region, after the neighbouring region on that side was loaded or unloaded.
+     *
+     * @param face
+     *         The value of the face of the region.
+     *
+     * @since 26.10.17
+     */
+    public void refreshBorder( int face )
+    {
+        Face f = Face.VALUES[ face ];
+
+        for ( Chunk c : getCreatedChunks() )
+        {
+            int position = f.offsetX != 0 ? c.x : ( f.offsetY != 0 ? c.y : c.z );
+            int side = f.offsetX + f.offsetY + f.offsetZ; // -1 or 1
+
+            if ( position == ( side < 0 ? 0 : LENGTH - 1 ) )
+            {
+                c.refreshVisibility();
+            }
+        }
+    }
+
+    /**
+     * Moves the chunks which haven't been touched for a while into cold storage, this should be called every so often, for example as a recurring event
+     * on the Scheduler.
+     *
+     * @return The number of chunks which were compressed.
+     *
+     * @since 26.10.17
+     */
+    public int compressIdleChunks()
+    {
+        long now = System.currentTimeMillis();
+        int compressed = 0;
+
+        for ( Chunk c : getCreatedChunks() )
+        {
+            if ( c.compressIfIdle( now ) )
+            {
+                compressed++;
+            }
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Renders every chunk in this region, creating those which haven't been.
      *
      * @since 14.03.30
      */
     public void render()
     {
-        for ( Chunk c : chunks )
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            prepareChunk( i ).render();
+        }
+
+        ChunkShader shader = Chunk.getShader();
+        if ( shader != null )
         {
+            shader.disable(); // the chunks leave it enabled between each other
+        }
+    }
+
+    /**
+     * Renders the chunks in this region which can be seen from the camera through open space. Starting at the camera's chunk, a breadth first search
+     * moves into a neighbouring chunk only if the face it leaves through is connected to the face it entered through, and never doubles back towards the
+     * camera. Chunks enclosed by solid chunks, such as caves, are never reached and so aren't rendered, or even created. The search doesn't move on from
+     * chunks which haven't been meshed yet, so it spreads out over the next few frames as the chunks it reached are generated and meshed. Each chunk that
+     * is rendered is drawn at the level of detail for its distance from the camera.
+     *
+     * @param camera
+     *         The camera the region is being viewed from.
+     *
+     * @since 26.10.17
+     */
+    public void render( Camera camera )
+    {
+        Arrays.fill( searchVisited, false );
+
+        // the camera's position on this region's chunk grid, which may be outside of the region
+        int cX = Math.floorDiv( ( int ) Math.floor( camera.getX() ) - ( x * LENGTH * Chunk.LENGTH ), Chunk.LENGTH );
+        int cY = Math.floorDiv( ( int ) Math.floor( camera.getY() ) - ( y * LENGTH * Chunk.LENGTH ), Chunk.LENGTH );
+        int cZ = Math.floorDiv( ( int ) Math.floor( camera.getZ() ) - ( z * LENGTH * Chunk.LENGTH ), Chunk.LENGTH );
+
+        int tail = 0;
+
+        if ( inRange( cX, 0, LENGTH ) && inRange( cY, 0, LENGTH ) && inRange( cZ, 0, LENGTH ) )
+        {
+            tail = enqueue( tail, cX + ( cY * LENGTH ) + ( cZ * AREA ), -1, 0 );
+        }
+        else
+        {
+            // the camera is outside, so the search starts from every chunk on the sides of the region facing it
+            for ( int i = 0; i < VOLUME; i++ )
+            {
+                int iX = i % LENGTH;
+                int iY = ( i / LENGTH ) % LENGTH;
+                int iZ = i / AREA;
+
+                for ( Face face : Face.VALUES )
+                {
+                    int position = face.offsetX != 0 ? iX : ( face.offsetY != 0 ? iY : iZ );
+                    int cameraPosition = face.offsetX != 0 ? cX : ( face.offsetY != 0 ? cY : cZ );
+                    int side = face.offsetX + face.offsetY + face.offsetZ; // -1 or 1
+
+                    // the chunk is on this side of the region, and the camera is beyond it
+                    if ( ( position == ( side < 0 ? 0 : LENGTH - 1 ) ) && ( side < 0 ? cameraPosition < 0 : cameraPosition >= LENGTH ) )
+                    {
+                        tail = enqueue( tail, i, face.value, 1 << ( face.value ^ 1 ) ); // travelling inwards, away from the camera
+                        break;
+                    }
+                }
+            }
+        }
+
+        for ( int head = 0; head < tail; head++ )
+        {
+            Chunk c = prepareChunk( searchQueue[ head ] );
+            int entry = searchEntry[ head ];
+            int directions = searchDirections[ head ];
+            long connectivity = c.getConnectivity();
+
+            // pick the level of detail by the distance to the center of the chunk
+            double dX = ( c.getGlobalX() + ( Chunk.LENGTH / 2.0 ) ) - camera.getX();
+            double dY = ( c.getGlobalY() + ( Chunk.LENGTH / 2.0 ) ) - camera.getY();
+            double dZ = ( c.getGlobalZ() + ( Chunk.LENGTH / 2.0 ) ) - camera.getZ();
+            c.setLodLevel( ChunkLod.getLevel( Math.sqrt( ( dX * dX ) + ( dY * dY ) + ( dZ * dZ ) ) ) );
+
             c.render();
+
+            if ( !c.isConnectivityKnown() )
+            {
+                continue; // what can be seen through it isn't known until it's meshed
+            }
+
+            for ( Face face : Face.VALUES )
+            {
+                if ( ( directions & ( 1 << ( face.value ^ 1 ) ) ) != 0 )
+                {
+                    continue; // this would travel back towards the camera
+                }
+                if ( ( entry != -1 ) && !ChunkConnectivity.isConnected( connectivity, entry, face.value ) )
+                {
+                    continue; // this face can't be seen from the face the search came through
+                }
+
+                int nX = c.x + face.offsetX;
+                int nY = c.y + face.offsetY;
+                int nZ = c.z + face.offsetZ;
+
+                if ( inRange( nX, 0, LENGTH ) && inRange( nY, 0, LENGTH ) && inRange( nZ, 0, LENGTH ) )
+                {
+                    int index = nX + ( nY * LENGTH ) + ( nZ * AREA );
+                    tail = enqueue( tail, index, face.value ^ 1, directions | ( 1 << face.value ) );
+                }
+            }
+        }
+
+        ChunkShader shader = Chunk.getShader();
+        if ( shader != null )
+        {
+            shader.disable(); // the chunks leave it enabled between each other
         }
     }
 
+    /**
+     * Adds a chunk to the visibility search, unless it has already been reached.
+     *
+     * @param tail
+     *         The end of the search queue.
+     * @param index
+     *         The index of the chunk.
+     * @param entry
+     *         The face the chunk is entered through.
+     * @param directions
+     *         The directions travelled to reach the chunk.
+     *
+     * @return The new end of the search queue.
+     *
+     * @since 26.10.17
+     */
+    private int enqueue( int tail, int index, int entry, int directions )
+    {
+        if ( searchVisited[ index ] )
+        {
+            return tail;
+        }
+
+        searchVisited[ index ] = true;
+        searchQueue[ tail ] = index;
+        searchEntry[ tail ] = entry;
+        searchDirections[ tail ] = directions;
+
+        return tail + 1;
+    }
+
     //
     // Getters
     //
 
     /**
-     * Returns the chunk at the given local positions.
+     * Returns the chunk at the given local positions, creating and generating it on this thread if it hasn't been yet, or if it's still waiting on the
+     * GenerationPool. Chunks evicted by the world's ChunkCache are loaded back instead of being generated. Positions outside of this region are looked up
+     * in the world.
      *
      * @param x
      *         The x coordinate of the chunk.
@@ -161,7 +799,7 @@ public class Region
      * @param z
      *         The z coordinate of the chunk.
      *
-     * @return The chunk at the given local positions.
+     * @return The chunk at the given local positions, or null if it's outside of this region and not loaded in the world.
      *
      * @since 14.03.30
      */
@@ -169,24 +807,169 @@ public class Region
     {
         if ( !inRange( x, 0, LENGTH ) || !inRange( y, 0, LENGTH ) || !inRange( z, 0, LENGTH ) )
         {
-            return null; // TODO change this to something else later
+            return world == null ? null : world.getChunkAt( ( this.x * LENGTH ) + x, ( this.y * LENGTH ) + y, ( this.z * LENGTH ) + z );
         }
 
         int index = x;
         index += ( y * LENGTH );
         index += ( z * AREA );
 
-        return chunks[ index ];
+        Chunk c = chunks[ index ];
+
+        if ( c == null )
+        {
+            c = createChunk( x, y, z );
+            addChunk( index, c );
+        }
+        else if ( ( requests[ index ] == null ) || requests[ index ].isPublished() )
+        {
+            return prepareChunk( index ); // already generated
+        }
+        else
+        {
+            requests[ index ].cancel(); // it's needed now, rather than whenever the pool gets to it
+        }
+
+        requests[ index ] = null;
+        if ( !restore( c ) )
+        {
+            generate( c );
+        }
+
+        if ( meshed )
+        {
+            c.scheduleRebuild();
+        }
+
+        return c;
     }
 
     /**
-     * Returns the chunks in this region.
+     * Returns the chunk at the given local positions, if it has been created. Positions outside of this region are looked up in the world. Unlike
+     * {@link #getChunkAt(int, int, int)}, this never creates a chunk, so it's what neighbouring chunks use to look at each other.
+     *
+     * @param x
+     *         The x coordinate of the chunk.
+     * @param y
+     *         The y coordinate of the chunk.
+     * @param z
+     *         The z coordinate of the chunk.
+     *
+     * @return The chunk at the given local positions, or null if it hasn't been created, or is outside of this region and not loaded in the world.
+     *
+     * @since 26.10.17
+     */
+    public Chunk findChunkAt( int x, int y, int z )
+    {
+        if ( !inRange( x, 0, LENGTH ) || !inRange( y, 0, LENGTH ) || !inRange( z, 0, LENGTH ) )
+        {
+            return world == null ? null : world.findChunkAt( ( this.x * LENGTH ) + x, ( this.y * LENGTH ) + y, ( this.z * LENGTH ) + z );
+        }
+
+        return chunks[ x + ( y * LENGTH ) + ( z * AREA ) ];
+    }
+
+    /**
+     * @param c
+     *         The chunk.
+     *
+     * @return If the chunk is still waiting to be generated.
+     *
+     * @since 26.10.17
+     */
+    public boolean isGenerating( Chunk c )
+    {
+        GenerationPool.Request request = requests[ c.x + ( c.y * LENGTH ) + ( c.z * AREA ) ];
+        return ( request != null ) && !request.isPublished() && !request.isCancelled() && !request.isFailed();
+    }
+
+    /**
+     * @return If any of the chunks are still waiting to be generated.
+     *
+     * @since 26.10.17
+     */
+    public boolean isGenerating()
+    {
+        for ( GenerationPool.Request request : requests )
+        {
+            if ( ( request != null ) && !request.isPublished() && !request.isCancelled() && !request.isFailed() )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the chunks in this region, creating and generating any which haven't been.
      *
      * @return The chunks in this region.
      */
     public Chunk[] getChunks()
     {
-        return chunks;
+        Chunk[] all = new Chunk[ VOLUME ];
+
+        for ( int i = 0; i < VOLUME; i++ )
+        {
+            all[ i ] = getChunkAt( i % LENGTH, ( i / LENGTH ) % LENGTH, i / AREA );
+        }
+
+        return all;
+    }
+
+    /**
+     * @return The chunks in this region which have been created, in the same order as {@link #getChunks()}.
+     *
+     * @since 26.10.17
+     */
+    public ArrayList< Chunk > getCreatedChunks()
+    {
+        ArrayList< Chunk > created = new ArrayList<>( VOLUME );
+
+        for ( Chunk c : chunks )
+        {
+            if ( c != null )
+            {
+                created.add( c );
+            }
+        }
+
+        return created;
+    }
+
+    /**
+     * @return The number of chunks in this region which have been created.
+     *
+     * @since 26.10.17
+     */
+    public int getCreatedCount()
+    {
+        int count = 0;
+
+        for ( Chunk c : chunks )
+        {
+            if ( c != null )
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the voxels of every chunk in this region as a single buffer, chunk after chunk in the same order as {@link #getChunks()}, which can be
+     * copied in one go. Only regions created while {@link #OffHeap} was enabled have one, once their first chunk has been created, and the slots of chunks
+     * which haven't been created are air.
+     *
+     * @return A read only view of the region's voxels, or null if the chunks store their own voxels or none have been created.
+     *
+     * @since 26.10.17
+     */
+    public ByteBuffer getVoxelData()
+    {
+        return voxelData == null ? null : voxelData.asReadOnlyBuffer();
     }
 
 }
@@ -0,0 +1,261 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+import java.util.Arrays;
+
+/**
+ * The cold storage of a chunk which hasn't been touched in a while, the voxels are compressed into runs of the same material, in index order. Terrain is
+ * mostly long horizontal runs of air or stone, so chunks usually compress into a few dozen runs. Voxels can still be read, by a binary search of the runs,
+ * so a cold chunk can be meshed or have its neighbours meshed without being decompressed. Changing a voxel re-encodes every run, so chunks decompress
+ * their cold storage before they change it.
+ *
+ * @version 26.10.17
+ * @see Chunk#compress()
+ * @since 26.10.17
+ */
+public class RunLengthVoxelStorage extends VoxelStorage
+{
+
+    //
+    // Options
+    //
+
+    /**
+     * The number of seconds a chunk must go untouched before it's moved into cold storage, 0 disables cold storage.
+     */
+    @Option( "Cold storage delay" )
+    @SliderOption( minimum = 0, maximum = 600 )
+    public static int ColdDelay = 60;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The index after the last voxel of each run.
+     */
+    private short[] ends;
+
+    /**
+     * The material id of each run.
+     */
+    private byte[] materials;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Compresses the voxels of another storage.
+     *
+     * @param storage
+     *         The storage to compress.
+     *
+     * @since 26.10.17
+     */
+    public RunLengthVoxelStorage( VoxelStorage storage )
+    {
+        encode( storage );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Replaces the runs with those of another storage.
+     *
+     * @param storage
+     *         The storage to compress.
+     *
+     * @since 26.10.17
+     */
+    private void encode( VoxelStorage storage )
+    {
+        int runs = countRuns( storage );
+
+        ends = new short[ runs ];
+        materials = new byte[ runs ];
+
+        int run = 0;
+        byte current = storage.get( 0 );
+
+        for ( int i = 1; i < Chunk.VOLUME; i++ )
+        {
+            byte b = storage.get( i );
+            if ( b != current )
+            {
+                ends[ run ] = ( short ) i;
+                materials[ run++ ] = current;
+                current = b;
+            }
+        }
+
+        ends[ run ] = ( short ) Chunk.VOLUME;
+        materials[ run ] = current;
+    }
+
+    /**
+     * Expands the runs back into a storage which can be changed.
+     *
+     * @return A new storage, created by {@link VoxelStorage#create()}, holding the same voxels.
+     *
+     * @since 26.10.17
+     */
+    public VoxelStorage decompress()
+    {
+        VoxelStorage storage = VoxelStorage.create();
+
+        int start = 0;
+        for ( int run = 0; run < ends.length; run++ )
+        {
+            byte b = materials[ run ];
+
+            if ( b != 0 )
+            {
+                for ( int i = start; i < ends[ run ]; i++ )
+                {
+                    storage.set( i, b ); // new storages are all air, so air runs are skipped
+                }
+            }
+
+            start = ends[ run ];
+        }
+
+        return storage;
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public byte get( int index )
+    {
+        return materials[ findRun( index ) ];
+    }
+
+    /**
+     * Changes a voxel by decompressing the runs and compressing them again, which is far slower than changing a decompressed storage.
+     */
+    @Override
+    public void set( int index, byte b )
+    {
+        if ( get( index ) == b )
+        {
+            return;
+        }
+
+        VoxelStorage storage = decompress();
+        storage.set( index, b );
+        encode( storage );
+    }
+
+    @Override
+    public void copyTo( int index, byte[] dest, int destIndex, int length )
+    {
+        int end = index + length;
+        int run = findRun( index );
+
+        while ( index < end )
+        {
+            int runEnd = Math.min( end, ends[ run ] );
+
+            Arrays.fill( dest, destIndex, destIndex + ( runEnd - index ), materials[ run ] );
+            destIndex += runEnd - index;
+            index = runEnd;
+            run++;
+        }
+    }
+
+    @Override
+    public void copyFrom( int index, byte[] src, int srcIndex, int length )
+    {
+        VoxelStorage storage = decompress(); // re-encoded once, rather than for every voxel
+        storage.copyFrom( index, src, srcIndex, length );
+        encode( storage );
+    }
+
+    @Override
+    public int getMemoryUsage()
+    {
+        return ( ends.length * 2 ) + materials.length;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Counts the runs a storage would be compressed into.
+     *
+     * @param storage
+     *         The storage.
+     *
+     * @return The number of runs.
+     *
+     * @since 26.10.17
+     */
+    public static int countRuns( VoxelStorage storage )
+    {
+        int runs = 1;
+        byte current = storage.get( 0 );
+
+        for ( int i = 1; i < Chunk.VOLUME; i++ )
+        {
+            byte b = storage.get( i );
+            if ( b != current )
+            {
+                runs++;
+                current = b;
+            }
+        }
+
+        return runs;
+    }
+
+    /**
+     * Finds the run containing a voxel.
+     *
+     * @param index
+     *         The index of the voxel.
+     *
+     * @return The index of the run.
+     *
+     * @since 26.10.17
+     */
+    private int findRun( int index )
+    {
+        int low = 0;
+        int high = ends.length - 1;
+
+        while ( low < high )
+        {
+            int middle = ( low + high ) >>> 1;
+
+            if ( ends[ middle ] <= index )
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @return The number of runs the voxels were compressed into.
+     *
+     * @since 26.10.17
+     */
+    public int getRunCount()
+    {
+        return ends.length;
+    }
+
+}
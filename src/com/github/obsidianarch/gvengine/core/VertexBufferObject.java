@@ -3,7 +3,9 @@ package com.github.obsidianarch.gvengine.core;
 import org.lwjgl.BufferUtils;
 import org.magicwerk.brownies.collections.primitive.FloatGapList;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
@@ -12,12 +14,26 @@ import static org.lwjgl.opengl.GL15.*;
  * A simplified version of the OpenGL VertexBufferObject, handles all of the low-level calls to OpenGL in single methods.
  *
  * @author Austin
- * @version 14.03.30
+ * @version 26.10.17
  * @since 14.03.30
  */
 public class VertexBufferObject
 {
 
+    //
+    // Static Fields
+    //
+
+    /**
+     * The binding of the element buffer shared by every VBO drawing quads.
+     */
+    private static int quadIndexBinding = -1;
+
+    /**
+     * The number of quads the shared element buffer has indices for.
+     */
+    private static int quadIndexCapacity = 0;
+
     //
     // Final Fields
     //
@@ -56,6 +72,31 @@ public class VertexBufferObject
      */
     private FloatGapList normals;
 
+    /**
+     * Interleaved vertex data which has already been built, and is waiting to be sent to OpenGL.
+     */
+    private ByteBuffer interleaved = null;
+
+    /**
+     * The number of vertices in the prebuilt interleaved data, or -1 if the vertex data comes from the lists.
+     */
+    private int prebuiltVertices = -1;
+
+    /**
+     * If the prebuilt vertex data is in the packed chunk format rather than this VBO's position, color, and normal systems.
+     */
+    private boolean packed = false;
+
+    /**
+     * The indices of the vertices to draw, or null if the vertices are drawn in order.
+     */
+    private int[] indices = null;
+
+    /**
+     * If every four vertices make up a quad, drawn as two triangles by the shared quad index buffer.
+     */
+    private boolean quads = false;
+
     /**
      * The method OpenGL will render the vertices.
      */
@@ -66,6 +107,11 @@ public class VertexBufferObject
      */
     private int glBinding = -1;
 
+    /**
+     * The binding of this VBO's own element buffer to OpenGL.
+     */
+    private int glIndexBinding = -1;
+
     /**
      * If the data has been modified.
      */
@@ -167,6 +213,13 @@ public class VertexBufferObject
     public void delete()
     {
         glDeleteBuffers( glBinding );
+        glBinding = -1;
+
+        if ( glIndexBinding != -1 )
+        {
+            glDeleteBuffers( glIndexBinding );
+            glIndexBinding = -1;
+        }
     }
 
     /**
@@ -176,6 +229,25 @@ public class VertexBufferObject
      */
     public void validate()
     {
+        // no binding has been created for this VBO yet, create one now (saves resources if the VBO is never used)
+        if ( glBinding == -1 )
+        {
+            glBinding = glGenBuffers();
+        }
+
+        // the data was already interleaved when it was built, so it can be sent as it is
+        if ( interleaved != null )
+        {
+            glBindBuffer( GL_ARRAY_BUFFER, glBinding );
+            glBufferData( GL_ARRAY_BUFFER, interleaved, GL_STATIC_DRAW );
+            glBindBuffer( GL_ARRAY_BUFFER, 0 );
+
+            interleaved = null; // OpenGL has its own copy now, the buffer may be reused by whoever built it
+            validateIndices();
+            dataValid = true;
+            return;
+        }
+
         FloatBuffer interleavedBuffer = BufferUtils.createFloatBuffer( coordinates.size() + channels.size() + normals.size() ); // the complete buffer that contains all the data
 
         // insert data into our buffer
@@ -183,20 +255,40 @@ public class VertexBufferObject
         MathHelper.insertBuffer( channels,    interleavedBuffer, cs.channels,    ps.coordinates,               ns.coordinates + ps.coordinates );
         MathHelper.insertBuffer( normals,     interleavedBuffer, ns.coordinates, ps.coordinates + cs.channels, ps.coordinates + cs.channels    );
 
-        // no binding has been created for this VBO yet, create one now (saves resources if the VBO is never used)
-        if ( glBinding == -1 )
-        {
-            glBinding = glGenBuffers();
-        }
-
         // bind and set the data for the VBO (then unbind)
         glBindBuffer( GL_ARRAY_BUFFER, glBinding ); // bind the buffer to OpenGL
         glBufferData( GL_ARRAY_BUFFER, interleavedBuffer, GL_STATIC_DRAW ); // bind the buffer data
         glBindBuffer( GL_ARRAY_BUFFER, 0 ); // unbind the buffer
 
+        validateIndices();
         dataValid = true; // all up to date
     }
 
+    /**
+     * Sends the indices to this VBO's element buffer, if it has any.
+     *
+     * @since 26.10.17
+     */
+    private void validateIndices()
+    {
+        if ( indices == null )
+        {
+            return;
+        }
+
+        if ( glIndexBinding == -1 )
+        {
+            glIndexBinding = glGenBuffers();
+        }
+
+        IntBuffer indexBuffer = BufferUtils.createIntBuffer( indices.length );
+        indexBuffer.put( indices ).flip();
+
+        glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, glIndexBinding );
+        glBufferData( GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW );
+        glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, 0 );
+    }
+
     /**
      * Renders our buffers.
      *
@@ -218,13 +310,58 @@ public class VertexBufferObject
         glPushMatrix(); // start editing out matrix
         {
             glBindBuffer( GL_ARRAY_BUFFER, glBinding ); // bind our buffer
-            provideVertexData(); // points to the vertices, colors, and normals
-            glDrawArrays( glMode, 0, coordinates.size() + channels.size() + normals.size() ); // draw the arrays
+
+            if ( packed )
+            {
+                // packed vertices only have a position, the color and normal arrays must not be read while they're drawn
+                glPushClientAttrib( GL_CLIENT_VERTEX_ARRAY_BIT );
+                glDisableClientState( GL_COLOR_ARRAY );
+                glDisableClientState( GL_NORMAL_ARRAY );
+                glEnableClientState( GL_VERTEX_ARRAY );
+
+                glVertexPointer( 4, GL_SHORT, ChunkVertexFormat.PACKED.bytesPerVertex, 0 );
+                drawVertices();
+
+                glPopClientAttrib();
+            }
+            else
+            {
+                provideVertexData(); // points to the vertices, colors, and normals
+                drawVertices(); // draw the arrays
+            }
+
             glBindBuffer( GL_ARRAY_BUFFER, 0 ); // unbind our buffer
         }
         glPopMatrix(); // stop editing our matrix
     }
 
+    /**
+     * Draws the vertices, through an element buffer if the VBO has indices or quads. The vertex data must already have been provided.
+     *
+     * @since 26.10.17
+     */
+    private void drawVertices()
+    {
+        if ( quads )
+        {
+            int quadCount = getVertexCount() / 4;
+
+            bindQuadIndices( quadCount );
+            glDrawElements( glMode, quadCount * 6, GL_UNSIGNED_INT, 0 );
+            glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, 0 );
+        }
+        else if ( indices != null )
+        {
+            glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, glIndexBinding );
+            glDrawElements( glMode, indices.length, GL_UNSIGNED_INT, 0 );
+            glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, 0 );
+        }
+        else
+        {
+            glDrawArrays( glMode, 0, getVertexCount() );
+        }
+    }
+
     /**
      * Provides OpenGL with the vertex data (positions, colors, and normals) for the VBO.
      *
@@ -244,6 +381,19 @@ public class VertexBufferObject
         }
     }
 
+    /**
+     * Marks the data as modified, the vertex data will come from the lists again the next time the VBO is validated.
+     *
+     * @since 26.10.17
+     */
+    private void invalidate()
+    {
+        interleaved = null;
+        prebuiltVertices = -1;
+        packed = false;
+        dataValid = false;
+    }
+
     //
     // Adders
     //
@@ -255,7 +405,7 @@ public class VertexBufferObject
     public void addCoordinates( float... array )
     {
         coordinates.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -265,7 +415,7 @@ public class VertexBufferObject
     public void addCoordinates( FloatGapList array )
     {
         coordinates.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -275,7 +425,7 @@ public class VertexBufferObject
     public void addChannels( float... array )
     {
         channels.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -285,7 +435,7 @@ public class VertexBufferObject
     public void addChannels( FloatGapList array )
     {
         channels.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -295,7 +445,7 @@ public class VertexBufferObject
     public void addNormals( float... array )
     {
         normals.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -305,7 +455,7 @@ public class VertexBufferObject
     public void addNormals( FloatGapList array )
     {
         normals.addAll( array );
-        dataValid = false;
+        invalidate();
     }
 
     //
@@ -323,6 +473,72 @@ public class VertexBufferObject
         this.glMode = glMode;
     }
 
+    /**
+     * Sets the indices of the vertices to draw, which are sent to OpenGL with the rest of the data the next time the VBO is validated.
+     *
+     * @param indices
+     *         The indices of the vertices to draw, or null to draw the vertices in order.
+     *
+     * @since 26.10.17
+     */
+    public void setIndices( int... indices )
+    {
+        this.indices = indices;
+        dataValid = false;
+    }
+
+    /**
+     * Sets if every four vertices make up a quad. Quads are drawn as two triangles, {@code 0, 1, 2} and {@code 2, 3, 0}, using an element buffer that is
+     * shared by every VBO, so only four vertices have to be stored for each quad instead of six. This takes precedence over the VBO's own indices.
+     *
+     * @param quads
+     *         If the vertices are quads.
+     *
+     * @since 26.10.17
+     */
+    public void setQuads( boolean quads )
+    {
+        this.quads = quads;
+    }
+
+    /**
+     * Sets vertex data which has already been interleaved to match this VBO's position, color, and normal systems. The buffer is sent to OpenGL as it is
+     * the next time the VBO is validated, and is not referenced afterwards. The data lists are ignored until they are modified again.
+     *
+     * @param data
+     *         The interleaved vertex data, from its position to its limit.
+     * @param vertexCount
+     *         The number of vertices in the data.
+     *
+     * @since 26.10.17
+     */
+    public void setInterleavedData( ByteBuffer data, int vertexCount )
+    {
+        interleaved = data;
+        prebuiltVertices = vertexCount;
+        packed = false;
+        dataValid = false;
+    }
+
+    /**
+     * Sets vertex data which has been written in {@link ChunkVertexFormat#PACKED}. Like {@link #setInterleavedData(ByteBuffer, int)} the buffer is sent
+     * to OpenGL the next time the VBO is validated, and the packed vertices can only be drawn correctly while the {@code ChunkShader} is enabled.
+     *
+     * @param data
+     *         The packed vertex data, from its position to its limit.
+     * @param vertexCount
+     *         The number of vertices in the data.
+     *
+     * @since 26.10.17
+     */
+    public void setPackedData( ByteBuffer data, int vertexCount )
+    {
+        interleaved = data;
+        prebuiltVertices = vertexCount;
+        packed = true;
+        dataValid = false;
+    }
+
     /**
      * @param array
      *         The new positioning data.
@@ -340,7 +556,7 @@ public class VertexBufferObject
     public void setCoordinates( FloatGapList array )
     {
         coordinates = array;
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -360,7 +576,7 @@ public class VertexBufferObject
     public void setChannels( FloatGapList array )
     {
         channels = array;
-        dataValid = false;
+        invalidate();
     }
 
     /**
@@ -380,7 +596,7 @@ public class VertexBufferObject
     public void setNormalCoordinates( FloatGapList array )
     {
         normals = array;
-        dataValid = false;
+        invalidate();
     }
 
     //
@@ -395,6 +611,50 @@ public class VertexBufferObject
         return dataValid;
     }
 
+    /**
+     * @return The indices of the vertices to draw, or null if the vertices are drawn in order.
+     *
+     * @since 26.10.17
+     */
+    public int[] getIndices()
+    {
+        return indices;
+    }
+
+    /**
+     * @return If every four vertices make up a quad.
+     *
+     * @since 26.10.17
+     */
+    public boolean isQuads()
+    {
+        return quads;
+    }
+
+    /**
+     * @return If the vertex data is in the packed chunk format.
+     *
+     * @since 26.10.17
+     */
+    public boolean isPacked()
+    {
+        return packed;
+    }
+
+    /**
+     * @return The number of vertices this VBO renders.
+     *
+     * @since 26.10.17
+     */
+    public int getVertexCount()
+    {
+        if ( prebuiltVertices != -1 )
+        {
+            return prebuiltVertices;
+        }
+        return coordinates.size() / ps.coordinates;
+    }
+
     /**
      * @return The coordinates.
      */
@@ -426,13 +686,65 @@ public class VertexBufferObject
     @Override
     public String toString()
     {
-        return String.format( "core.vbo{ glBinding: %1d | vertices: %2d | valid: %3b }", glBinding, coordinates.size() / ps.coordinates, isValid() );
+        return String.format( "core.vbo{ glBinding: %1d | vertices: %2d | valid: %3b }", glBinding, getVertexCount(), isValid() );
     }
 
     //
     // Static
     //
 
+    /**
+     * Binds the shared quad index buffer, first growing it if it doesn't have indices for enough quads.
+     *
+     * @param quadCount
+     *         The number of quads about to be drawn.
+     *
+     * @since 26.10.17
+     */
+    private static void bindQuadIndices( int quadCount )
+    {
+        if ( quadIndexBinding == -1 )
+        {
+            quadIndexBinding = glGenBuffers();
+        }
+
+        glBindBuffer( GL_ELEMENT_ARRAY_BUFFER, quadIndexBinding );
+
+        if ( quadCount <= quadIndexCapacity )
+        {
+            return; // there are already enough indices
+        }
+
+        int capacity = Math.max( quadCount, Math.max( quadIndexCapacity * 2, 1024 ) );
+        IntBuffer indexBuffer = BufferUtils.createIntBuffer( capacity * 6 );
+
+        for ( int i = 0; i < capacity; i++ )
+        {
+            int first = i * 4; // the first vertex of the quad
+            indexBuffer.put( first ).put( first + 1 ).put( first + 2 );
+            indexBuffer.put( first + 2 ).put( first + 3 ).put( first );
+        }
+        indexBuffer.flip();
+
+        glBufferData( GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW );
+        quadIndexCapacity = capacity;
+    }
+
+    /**
+     * Deletes the shared quad index buffer, it is created again the next time quads are drawn.
+     *
+     * @since 26.10.17
+     */
+    public static void deleteQuadIndices()
+    {
+        if ( quadIndexBinding != -1 )
+        {
+            glDeleteBuffers( quadIndexBinding );
+            quadIndexBinding = -1;
+            quadIndexCapacity = 0;
+        }
+    }
+
     /**
      * Merges multiple VertexBufferObjects into one.
      *
@@ -6,7 +6,7 @@ import org.magicwerk.brownies.collections.primitive.FloatGapList;
  * Everything involved with the creation of individual voxels.
  *
  * @author Austin
- * @version 14.10.26
+ * @version 26.10.17
  * @since 14.03.30
  */
 public final class Voxel
@@ -43,34 +43,81 @@ public final class Voxel
             return; // this voxel shouldn't be rendered
         }
 
-        Material material = c.getMaterialAt( x, y, z ); // the material of this voxel
+        int color = Material.getColor( c.getMaterialIdAt( x, y, z ) ); // the color of this voxel's material
 
-        float[] colorSource = { material.color.getRed() / 255f, material.color.getGreen() / 255f, material.color.getBlue() / 255f };
-        RepeatingArray repeatingColors = new RepeatingArray( colorSource );
-        float[] repeatedColors = repeatingColors.createArray( 18 ); // this will be added for every face, for the voxel's color
+        float r = ( color >>> 24 ) / 255f;
+        float g = ( ( color >>> 16 ) & 0xFF ) / 255f;
+        float b = ( ( color >>> 8 ) & 0xFF ) / 255f;
 
         // get the global positions of the voxel
-        double[] offsets = c.getGlobalOffset();
-        float gX = ( float ) ( x + offsets[ 0 ] );
-        float gY = ( float ) ( y + offsets[ 1 ] );
-        float gZ = ( float ) ( z + offsets[ 2 ] );
+        float gX = x + c.getGlobalX();
+        float gY = y + c.getGlobalY();
+        float gZ = z + c.getGlobalZ();
 
         // cycle through all the faces
-        for ( Face face : Face.values() )
+        for ( Face face : Face.VALUES )
         {
             if ( c.isVisible( face, x, y, z ) )
             {
-                RepeatingArray repeatingNormals = new RepeatingArray( face.getNormals( x, y, z ) );
-                float[] repeatedNormals = repeatingNormals.createArray( 18 ); // create the normal array
-
-                // add the position and color data for this face
-                positions.addAll( createFace( face, gX, gY, gZ ) );
-                colors.addAll( repeatedColors );
-                normals.addAll( repeatedNormals );
+                addFace( positions, colors, normals, face, gX, gY, gZ, 1, 1, 1, r, g, b );
             }
         }
     }
 
+    /**
+     * Appends the position, color, and normal data for a face directly to the lists, using the face's precomputed corners. Nothing is allocated, so this is
+     * safe to call from inside of meshing loops.
+     *
+     * @param positions
+     *         The list to which the face's positions will be appended.
+     * @param colors
+     *         The list to which the face's colors will be appended.
+     * @param normals
+     *         The list to which the face's normals will be appended.
+     * @param face
+     *         The face.
+     * @param x
+     *         The global x coordinate of the face.
+     * @param y
+     *         The global y coordinate of the face.
+     * @param z
+     *         The global z coordinate of the face.
+     * @param width
+     *         The number of voxels the face covers along the x axis.
+     * @param height
+     *         The number of voxels the face covers along the y axis.
+     * @param depth
+     *         The number of voxels the face covers along the z axis.
+     * @param r
+     *         The red channel of the face's color.
+     * @param g
+     *         The green channel of the face's color.
+     * @param b
+     *         The blue channel of the face's color.
+     *
+     * @since 26.10.17
+     */
+    public static void addFace( FloatGapList positions, FloatGapList colors, FloatGapList normals, Face face, float x, float y, float z, float width,
+                                float height, float depth, float r, float g, float b )
+    {
+        byte[] corners = face.corners;
+
+        for ( int i = 0; i < corners.length; i += 3 )
+        {
+            positions.add( x + ( corners[ i ] * width ) );
+            positions.add( y + ( corners[ i + 1 ] * height ) );
+            positions.add( z + ( corners[ i + 2 ] * depth ) );
+
+            colors.add( r );
+            colors.add( g );
+            colors.add( b );
+
+            normals.add( face.offsetX );
+            normals.add( face.offsetY );
+            normals.add( face.offsetZ );
+        }
+    }
+
     /**
      * Creates a float array for the positioning of a voxel face.
      *
@@ -89,38 +136,40 @@ public final class Voxel
      */
     public static float[] createFace( Face direction, float x, float y, float z )
     {
-        float[] points = null; // the point's we'll send back
+        return createFace( direction, x, y, z, 1, 1, 1 );
+    }
 
-        // these make the far (positive) spaces easier to reach
-        float xp = x + 1;
-        float yp = y + 1;
-        float zp = z + 1;
+    /**
+     * Creates a float array for the positioning of a face that covers several voxels, such as the merged faces created by the {@code GreedyChunkMesher}.
+     *
+     * @param direction
+     *         The face.
+     * @param x
+     *         The global x coordinate of the face.
+     * @param y
+     *         The global y coordinate of the face.
+     * @param z
+     *         The global z coordinate of the face.
+     * @param width
+     *         The number of voxels the face covers along the x axis.
+     * @param height
+     *         The number of voxels the face covers along the y axis.
+     * @param depth
+     *         The number of voxels the face covers along the z axis.
+     *
+     * @return The face's position data.
+     *
+     * @since 26.10.17
+     */
+    public static float[] createFace( Face direction, float x, float y, float z, float width, float height, float depth )
+    {
+        float[] points = new float[ direction.corners.length ]; // the point's we'll send back
 
-        switch ( direction )
+        for ( int i = 0; i < points.length; i += 3 )
         {
-            case LEFT: // LBF-RBF-LTF | RTF-RBF-LTF
-                points = new float[] { x, yp, z, x, y, z, x, y, zp, x, yp, z, x, y, zp, x, yp, zp };
-                break;
-
-            case BOTTOM: // LBF-RBF-LBB | RBB-RBF-LBB
-                points = new float[] { x, y, zp, x, y, z, xp, y, zp, x, y, z, xp, y, z, xp, y, zp };
-                break;
-
-            case FRONT: // LBF-RBF-LTF | RTF-RBF-LTF
-                points = new float[] { xp, yp, z, xp, y, z, x, y, z, xp, yp, z, x, y, z, x, yp, z };
-                break;
-
-            case RIGHT: // same as left, but x is shifted
-                points = new float[] { xp, yp, zp, xp, y, zp, xp, y, z, xp, yp, zp, xp, y, z, xp, yp, z };
-                break;
-
-            case TOP: // same as bottom, but y is shifted
-                points = new float[] { xp, yp, zp, x, yp, z, x, yp, zp, xp, yp, zp, xp, yp, z, x, yp, z };
-                break;
-
-            case BACK: // same as front, but z is shifted
-                points = new float[] { x, y, zp, xp, y, zp, xp, yp, zp, x, yp, zp, x, y, zp, xp, yp, zp };
-                break;
+            points[ i ] = x + ( direction.corners[ i ] * width );
+            points[ i + 1 ] = y + ( direction.corners[ i + 1 ] * height );
+            points[ i + 2 ] = z + ( direction.corners[ i + 2 ] * depth );
         }
 
         return points;
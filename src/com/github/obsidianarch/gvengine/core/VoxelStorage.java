@@ -0,0 +1,141 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.ToggleOption;
+
+/**
+ * Holds the material ids of a chunk's voxels, indexed by {@code x + ( y * LENGTH ) + ( z * AREA )}. Implementations trade the speed of reads and writes
+ * against the memory each chunk keeps resident.
+ *
+ * @version 26.10.17
+ * @see ArrayVoxelStorage
+ * @see PaletteVoxelStorage
+ * @see DirectVoxelStorage
+ * @since 26.10.17
+ */
+public abstract class VoxelStorage
+{
+
+    //
+    // Options
+    //
+
+    /**
+     * If new chunks store their voxels in a PaletteVoxelStorage instead of an ArrayVoxelStorage.
+     */
+    @Option( "Palette storage" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean Palette = true;
+
+    //
+    // Static Methods
+    //
+
+    /**
+     * Creates an empty storage for a chunk, every voxel is air.
+     *
+     * @return The storage selected by the options.
+     *
+     * @since 26.10.17
+     */
+    public static VoxelStorage create()
+    {
+        return Palette ? new PaletteVoxelStorage() : new ArrayVoxelStorage();
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Copies a run of voxels into an array.
+     *
+     * @param index
+     *         The index of the first voxel to copy.
+     * @param dest
+     *         The array to copy into.
+     * @param destIndex
+     *         The index in the array of the first voxel.
+     * @param length
+     *         The number of voxels to copy.
+     *
+     * @since 26.10.17
+     */
+    public void copyTo( int index, byte[] dest, int destIndex, int length )
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            dest[ destIndex + i ] = get( index + i );
+        }
+    }
+
+    /**
+     * Copies a run of voxels from an array into this storage.
+     *
+     * @param index
+     *         The index of the first voxel to set.
+     * @param src
+     *         The array to copy from.
+     * @param srcIndex
+     *         The index in the array of the first voxel.
+     * @param length
+     *         The number of voxels to copy.
+     *
+     * @since 26.10.17
+     */
+    public void copyFrom( int index, byte[] src, int srcIndex, int length )
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            set( index + i, src[ srcIndex + i ] );
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return If moving the voxels into cold storage would free any memory.
+     *
+     * @since 26.10.17
+     */
+    public boolean isCompressible()
+    {
+        return true;
+    }
+
+    //
+    // Abstract
+    //
+
+    /**
+     * @param index
+     *         The index of the voxel.
+     *
+     * @return The byte id of the voxel's material.
+     *
+     * @since 26.10.17
+     */
+    public abstract byte get( int index );
+
+    /**
+     * Sets the material of a voxel.
+     *
+     * @param index
+     *         The index of the voxel.
+     * @param b
+     *         The byte id of the material.
+     *
+     * @since 26.10.17
+     */
+    public abstract void set( int index, byte b );
+
+    /**
+     * @return The approximate number of bytes this storage keeps resident.
+     *
+     * @since 26.10.17
+     */
+    public abstract int getMemoryUsage();
+
+}
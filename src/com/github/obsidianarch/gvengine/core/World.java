@@ -0,0 +1,559 @@
+package com.github.obsidianarch.gvengine.core;
+
+import com.github.obsidianarch.gvengine.core.options.Option;
+import com.github.obsidianarch.gvengine.core.options.SliderOption;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * An unbounded grid of regions, which are loaded around the camera as it moves and unloaded once it moves away. Regions are kept in a map keyed by their
+ * packed coordinates, so any voxel, chunk, or region is found in constant time, and the regions look up chunks past their borders through the world, so
+ * chunks on the edge of a region see the neighbouring region's chunks instead of air.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class World
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The length of one side of a region, measured in voxels.
+     */
+    public static final int REGION_VOXELS = Region.LENGTH * Chunk.LENGTH;
+
+    /**
+     * The bits used by each coordinate in a packed key.
+     */
+    private static final int KEY_BITS = 21;
+
+    /**
+     * The mask of a single coordinate in a packed key.
+     */
+    private static final long KEY_MASK = ( 1L << KEY_BITS ) - 1;
+
+    //
+    // Options
+    //
+
+    /**
+     * The distance (in regions) from the camera's region within which regions are loaded. Regions are unloaded once they're a region further away than
+     * this, so moving back and forth over a border doesn't keep loading and unloading the same regions.
+     */
+    @Option( "Region load radius" )
+    @SliderOption( minimum = 0, maximum = 8 )
+    public static int LoadRadius = 1;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The loaded regions, by their packed coordinates.
+     */
+    private final LongHashMap< Region > regions = new LongHashMap<>();
+
+    /**
+     * Responsible for generating the chunks of every region loaded.
+     */
+    private final ChunkGenerator generator;
+
+    /**
+     * Keeps the chunks of the loaded regions within the memory budget, and holds the chunks it has evicted.
+     */
+    private final ChunkCache cache;
+
+    /**
+     * The region the camera was in when the loaded regions were last updated.
+     */
+    private int centerX, centerY, centerZ;
+
+    /**
+     * The load radius when the loaded regions were last updated, -1 if they have never been updated.
+     */
+    private int lastRadius = -1;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates an empty world.
+     *
+     * @param generator
+     *         The chunk generator used to generate the regions as they're loaded.
+     *
+     * @since 26.10.17
+     */
+    public World( ChunkGenerator generator )
+    {
+        this( generator, null );
+    }
+
+    /**
+     * Creates an empty world, which saves the chunks it evicts to a directory. Chunks already saved in the directory are loaded back instead of being
+     * generated, nothing in it is deleted until {@link ChunkCache#clear()} is called.
+     *
+     * @param generator
+     *         The chunk generator used to generate the regions as they're loaded.
+     * @param cacheDirectory
+     *         The directory evicted chunks are saved to, or null to use a temporary directory.
+     *
+     * @since 26.10.17
+     */
+    public World( ChunkGenerator generator, File cacheDirectory )
+    {
+        this.generator = generator;
+        this.cache = new ChunkCache( cacheDirectory );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Loads the regions within {@link #LoadRadius} of the camera which aren't loaded yet, nearest first, and unloads the regions which are too far away.
+     * Regions are only loaded and unloaded once the camera has moved into another region, or the radius has changed, but the chunks which have finished
+     * generating are published, and the least recently used chunks are evicted if they're over the ChunkCache's budget, every time. This must be called
+     * from the OpenGL thread, as the meshes of unloaded chunks are deleted.
+     *
+     * @param camera
+     *         The camera the world is being viewed from.
+     *
+     * @since 26.10.17
+     */
+    public void update( Camera camera )
+    {
+        int rX = Math.floorDiv( ( int ) Math.floor( camera.getX() ), REGION_VOXELS );
+        int rY = Math.floorDiv( ( int ) Math.floor( camera.getY() ), REGION_VOXELS );
+        int rZ = Math.floorDiv( ( int ) Math.floor( camera.getZ() ), REGION_VOXELS );
+        int radius = Math.max( LoadRadius, 0 );
+
+        GenerationPool.prioritize( camera );
+        GenerationPool.publish();
+        cache.trim();
+
+        if ( ( rX == centerX ) && ( rY == centerY ) && ( rZ == centerZ ) && ( radius == lastRadius ) )
+        {
+            return; // the same regions are still wanted
+        }
+
+        centerX = rX;
+        centerY = rY;
+        centerZ = rZ;
+        lastRadius = radius;
+
+        // unload the regions which are too far away
+        int unloadRadius = radius + 1;
+        for ( Region r : regions.values() )
+        {
+            if ( getDistanceSquared( r.x - rX, r.y - rY, r.z - rZ ) > ( unloadRadius * unloadRadius ) )
+            {
+                unloadRegion( r.x, r.y, r.z );
+            }
+        }
+
+        // load the wanted regions, the nearest first
+        for ( int[] offset : getOffsets( radius ) )
+        {
+            loadRegion( rX + offset[ 0 ], rY + offset[ 1 ], rZ + offset[ 2 ] );
+        }
+    }
+
+    /**
+     * Loads a region, unless it's already loaded. Its chunks are created as they're reached while rendering, generated by the GenerationPool, and meshed
+     * as they're published.
+     *
+     * @param rX
+     *         The region's x coordinate.
+     * @param rY
+     *         The region's y coordinate.
+     * @param rZ
+     *         The region's z coordinate.
+     *
+     * @return The region.
+     *
+     * @since 26.10.17
+     */
+    public Region loadRegion( int rX, int rY, int rZ )
+    {
+        long key = pack( rX, rY, rZ );
+
+        Region region = regions.get( key );
+        if ( region != null )
+        {
+            return region;
+        }
+
+        // the chunks update the visibility masks of the neighbouring regions' chunks as they're published
+        region = new Region( this, generator, rX, rY, rZ );
+        regions.put( key, region );
+        region.rebuild();
+
+        return region;
+    }
+
+    /**
+     * Unloads a region, cancelling the generation of its chunks and deleting their meshes. Chunks which have been modified are saved by the ChunkCache
+     * first, so they're loaded back with the region. The chunks of the neighbouring regions along its borders recalculate their visibility masks,
+     * as they now face air.
+     *
+     * @param rX
+     *         The region's x coordinate.
+     * @param rY
+     *         The region's y coordinate.
+     * @param rZ
+     *         The region's z coordinate.
+     *
+     * @return If the region was loaded.
+     *
+     * @since 26.10.17
+     */
+    public boolean unloadRegion( int rX, int rY, int rZ )
+    {
+        Region region = regions.remove( pack( rX, rY, rZ ) );
+        if ( region == null )
+        {
+            return false;
+        }
+
+        region.cancelGeneration();
+        for ( Chunk c : region.getCreatedChunks() )
+        {
+            if ( !cache.evict( c ) ) // modified chunks are saved, so they're loaded back with the region
+            {
+                c.unload();
+                cache.remove( c ); // it couldn't be saved, so its changes are lost
+            }
+        }
+
+        for ( Face face : Face.VALUES )
+        {
+            Region neighbour = getRegion( rX + face.offsetX, rY + face.offsetY, rZ + face.offsetZ );
+            if ( neighbour != null )
+            {
+                neighbour.refreshBorder( face.value ^ 1 ); // the neighbour's side facing the unloaded region
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Unloads every region.
+     *
+     * @since 26.10.17
+     */
+    public void unloadAll()
+    {
+        for ( Region r : regions.values() )
+        {
+            r.cancelGeneration();
+            for ( Chunk c : r.getCreatedChunks() )
+            {
+                c.unload();
+            }
+        }
+
+        regions.clear();
+        cache.clear(); // nothing is left to load the saved chunks back into
+        lastRadius = -1;
+    }
+
+    /**
+     * Schedules rebuilds for every chunk in the world.
+     *
+     * @since 26.10.17
+     */
+    public void rebuild()
+    {
+        for ( Region r : regions.values() )
+        {
+            r.rebuild();
+        }
+    }
+
+    /**
+     * Moves the chunks which haven't been touched for a while into cold storage, see {@link Region#compressIdleChunks()}.
+     *
+     * @return The number of chunks which were compressed.
+     *
+     * @since 26.10.17
+     */
+    public int compressIdleChunks()
+    {
+        int compressed = 0;
+
+        for ( Region r : regions.values() )
+        {
+            compressed += r.compressIdleChunks();
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Renders every loaded region.
+     *
+     * @since 26.10.17
+     */
+    public void render()
+    {
+        for ( Region r : regions.values() )
+        {
+            r.render();
+        }
+    }
+
+    /**
+     * Renders the chunks of every loaded region which can be seen from the camera, see {@link Region#render(Camera)}.
+     *
+     * @param camera
+     *         The camera the world is being viewed from.
+     *
+     * @since 26.10.17
+     */
+    public void render( Camera camera )
+    {
+        for ( Region r : regions.values() )
+        {
+            r.render( camera );
+        }
+    }
+
+    /**
+     * Sets the material of a voxel.
+     *
+     * @param b
+     *         The byte id of the material.
+     * @param x
+     *         The voxel's x coordinate in the world.
+     * @param y
+     *         The voxel's y coordinate in the world.
+     * @param z
+     *         The voxel's z coordinate in the world.
+     *
+     * @return If the voxel's chunk is loaded, voxels in chunks which haven't been created, are still being generated, or have been evicted can't be
+     * changed.
+     *
+     * @since 26.10.17
+     */
+    public boolean setMaterialAt( byte b, int x, int y, int z )
+    {
+        // never creates the chunk, which would generate it on this thread and throw away the GenerationPool's work
+        Chunk c = findChunkAt( Math.floorDiv( x, Chunk.LENGTH ), Math.floorDiv( y, Chunk.LENGTH ), Math.floorDiv( z, Chunk.LENGTH ) );
+        if ( ( c == null ) || c.region.isGenerating( c ) )
+        {
+            return false;
+        }
+
+        c.setMaterialAt( b, Math.floorMod( x, Chunk.LENGTH ), Math.floorMod( y, Chunk.LENGTH ), Math.floorMod( z, Chunk.LENGTH ) );
+        return true;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * Packs the coordinates of a region into a single key. Each coordinate keeps its lowest 21 bits, which covers over a million regions either way.
+     *
+     * @param x
+     *         The x coordinate.
+     * @param y
+     *         The y coordinate.
+     * @param z
+     *         The z coordinate.
+     *
+     * @return The packed coordinates.
+     *
+     * @since 26.10.17
+     */
+    public static long pack( int x, int y, int z )
+    {
+        return ( ( x & KEY_MASK ) << ( KEY_BITS * 2 ) ) | ( ( y & KEY_MASK ) << KEY_BITS ) | ( z & KEY_MASK );
+    }
+
+    /**
+     * @return The cache keeping this world's chunks within the memory budget.
+     *
+     * @since 26.10.17
+     */
+    public ChunkCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * @param rX
+     *         The region's x coordinate.
+     * @param rY
+     *         The region's y coordinate.
+     * @param rZ
+     *         The region's z coordinate.
+     *
+     * @return The region, or null if it isn't loaded.
+     *
+     * @since 26.10.17
+     */
+    public Region getRegion( int rX, int rY, int rZ )
+    {
+        return regions.get( pack( rX, rY, rZ ) );
+    }
+
+    /**
+     * @param cX
+     *         The chunk's x coordinate in the world.
+     * @param cY
+     *         The chunk's y coordinate in the world.
+     * @param cZ
+     *         The chunk's z coordinate in the world.
+     *
+     * @return The chunk, created and generated if it hasn't been, or null if its region isn't loaded.
+     *
+     * @since 26.10.17
+     */
+    public Chunk getChunkAt( int cX, int cY, int cZ )
+    {
+        Region region = regions.get( pack( Math.floorDiv( cX, Region.LENGTH ), Math.floorDiv( cY, Region.LENGTH ), Math.floorDiv( cZ, Region.LENGTH ) ) );
+        if ( region == null )
+        {
+            return null;
+        }
+
+        return region.getChunkAt( Math.floorMod( cX, Region.LENGTH ), Math.floorMod( cY, Region.LENGTH ), Math.floorMod( cZ, Region.LENGTH ) );
+    }
+
+    /**
+     * @param cX
+     *         The chunk's x coordinate in the world.
+     * @param cY
+     *         The chunk's y coordinate in the world.
+     * @param cZ
+     *         The chunk's z coordinate in the world.
+     *
+     * @return The chunk, or null if its region isn't loaded or it hasn't been created, see {@link Region#findChunkAt(int, int, int)}.
+     *
+     * @since 26.10.17
+     */
+    public Chunk findChunkAt( int cX, int cY, int cZ )
+    {
+        Region region = regions.get( pack( Math.floorDiv( cX, Region.LENGTH ), Math.floorDiv( cY, Region.LENGTH ), Math.floorDiv( cZ, Region.LENGTH ) ) );
+        if ( region == null )
+        {
+            return null;
+        }
+
+        return region.findChunkAt( Math.floorMod( cX, Region.LENGTH ), Math.floorMod( cY, Region.LENGTH ), Math.floorMod( cZ, Region.LENGTH ) );
+    }
+
+    /**
+     * @param x
+     *         The voxel's x coordinate in the world.
+     * @param y
+     *         The voxel's y coordinate in the world.
+     * @param z
+     *         The voxel's z coordinate in the world.
+     *
+     * @return The byte id of the voxel's material, voxels in chunks which haven't been created, are still being generated, or have been evicted are air.
+     *
+     * @since 26.10.17
+     */
+    public byte getMaterialIdAt( int x, int y, int z )
+    {
+        Chunk c = findChunkAt( Math.floorDiv( x, Chunk.LENGTH ), Math.floorDiv( y, Chunk.LENGTH ), Math.floorDiv( z, Chunk.LENGTH ) );
+        if ( c == null )
+        {
+            return Material.AIR.byteID;
+        }
+
+        return c.getMaterialIdAt( Math.floorMod( x, Chunk.LENGTH ) + ( Math.floorMod( y, Chunk.LENGTH ) * Chunk.LENGTH ) +
+                                  ( Math.floorMod( z, Chunk.LENGTH ) * Chunk.AREA ) );
+    }
+
+    /**
+     * @return The loaded regions, in no particular order.
+     *
+     * @since 26.10.17
+     */
+    public ArrayList< Region > getRegions()
+    {
+        return regions.values();
+    }
+
+    /**
+     * @return The number of loaded regions.
+     *
+     * @since 26.10.17
+     */
+    public int getRegionCount()
+    {
+        return regions.size();
+    }
+
+    /**
+     * Lists the offsets of every region within a radius, nearest first.
+     *
+     * @param radius
+     *         The radius, in regions.
+     *
+     * @return The offsets, as {x, y, z}.
+     *
+     * @since 26.10.17
+     */
+    private static ArrayList< int[] > getOffsets( int radius )
+    {
+        ArrayList< int[] > offsets = new ArrayList<>();
+
+        for ( int x = -radius; x <= radius; x++ )
+        {
+            for ( int y = -radius; y <= radius; y++ )
+            {
+                for ( int z = -radius; z <= radius; z++ )
+                {
+                    if ( getDistanceSquared( x, y, z ) <= ( radius * radius ) )
+                    {
+                        offsets.add( new int[] { x, y, z } );
+                    }
+                }
+            }
+        }
+
+        Collections.sort( offsets, new Comparator< int[] >()
+        {
+
+            @Override
+            public int compare( int[] a, int[] b )
+            {
+                return Integer.compare( getDistanceSquared( a[ 0 ], a[ 1 ], a[ 2 ] ), getDistanceSquared( b[ 0 ], b[ 1 ], b[ 2 ] ) );
+            }
+
+        } );
+
+        return offsets;
+    }
+
+    /**
+     * @param x
+     *         The x offset.
+     * @param y
+     *         The y offset.
+     * @param z
+     *         The z offset.
+     *
+     * @return The squared length of the offset.
+     *
+     * @since 26.10.17
+     */
+    private static int getDistanceSquared( int x, int y, int z )
+    {
+        return ( x * x ) + ( y * y ) + ( z * z );
+    }
+
+}
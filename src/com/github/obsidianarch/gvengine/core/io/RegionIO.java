@@ -10,7 +10,7 @@ import java.io.*;
  * Contains the reading and writing to regions files.
  *
  * @author Austin
- * @version 14.02.08
+ * @version 26.10.17
  * @since 14.03.30
  */
 public final class RegionIO
@@ -85,10 +85,7 @@ public final class RegionIO
             }
             dos.flush();
 
-            for ( byte b : voxels )
-            {
-                dos.writeByte( b );
-            }
+            dos.write( voxels );
             dos.flush();
         }
         catch ( IOException e )
@@ -97,6 +94,115 @@ public final class RegionIO
         }
     }
 
+    /**
+     * Returns the file a single chunk is saved to by {@link #saveChunk(Chunk, File)}, named after the chunk's position on the world's chunk grid.
+     *
+     * @param c
+     *         The chunk.
+     * @param dir
+     *         The directory the chunk is saved in.
+     *
+     * @return The chunk's file.
+     *
+     * @since 26.10.17
+     */
+    public static File getChunkFile( Chunk c, File dir )
+    {
+        int x = ( c.region.x * Region.LENGTH ) + c.x;
+        int y = ( c.region.y * Region.LENGTH ) + c.y;
+        int z = ( c.region.z * Region.LENGTH ) + c.z;
+
+        return new File( dir, String.format( "c%d %d %d.gven.dat", x, y, z ) );
+    }
+
+    /**
+     * @param f
+     *         The file.
+     *
+     * @return If the file is named like a chunk saved by {@link #saveChunk(Chunk, File)}.
+     *
+     * @since 26.10.17
+     */
+    public static boolean isChunkFile( File f )
+    {
+        return f.getName().startsWith( "c" ) && f.getName().endsWith( ".gven.dat" );
+    }
+
+    /**
+     * Saves a single chunk into the given directory, in the same format as a chunk in a region file. Unlike {@link #saveRegion(Region, File)} the chunk
+     * is written before this returns, so it can be loaded again at once.
+     *
+     * @param c
+     *         The chunk to write.
+     * @param dir
+     *         The directory to write to.
+     *
+     * @return If the chunk was saved.
+     *
+     * @since 26.10.17
+     */
+    public static boolean saveChunk( Chunk c, File dir )
+    {
+        File f = getChunkFile( c, dir );
+
+        if ( !createFile( f ) )
+        {
+            return false;
+        }
+
+        try ( DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( f ) ) ) )
+        {
+            dos.writeInt( c.x );
+            dos.writeInt( c.y );
+            dos.writeInt( c.z );
+            dos.write( c.getVoxels() );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            Lumberjack.throwable( "ChnSave", e );
+            return false;
+        }
+    }
+
+    /**
+     * Loads the voxels of a chunk saved by {@link #saveChunk(Chunk, File)} into a chunk.
+     *
+     * @param c
+     *         The chunk to read into.
+     * @param dir
+     *         The directory the chunk was saved in.
+     *
+     * @return If the chunk had been saved, and was read properly.
+     *
+     * @since 26.10.17
+     */
+    public static boolean loadChunk( Chunk c, File dir )
+    {
+        File f = getChunkFile( c, dir );
+
+        if ( !f.isFile() )
+        {
+            return false;
+        }
+
+        try ( DataInputStream dis = new DataInputStream( new BufferedInputStream( new FileInputStream( f ) ) ) )
+        {
+            dis.skipBytes( 12 ); // the chunk's coordinates, which are already known
+
+            byte[] voxels = new byte[ Chunk.VOLUME ];
+            dis.readFully( voxels );
+            c.setVoxels( voxels );
+
+            return true;
+        }
+        catch ( IOException e )
+        {
+            Lumberjack.throwable( "ChnLoad", e );
+            return false;
+        }
+    }
+
     /**
      * Saves the region into the given directory.
      *
@@ -116,10 +222,10 @@ public final class RegionIO
             return;
         }
 
-        Chunk[] chunks = region.getChunks();
+        Chunk[] chunks = region.getChunks(); // every chunk is written, so those which haven't been created yet are generated
 
         int[][] chunkCoords = new int[ chunks.length ][ 3 ];
-        byte[][] voxels = new byte[ chunks.length ][ chunks[ 0 ].getVoxels().length ];
+        byte[][] voxels = new byte[ chunks.length ][];
 
         for ( int i = 0; i < chunks.length; i++ )
         {
@@ -127,10 +233,7 @@ public final class RegionIO
             chunkCoords[ i ][ 1 ] = chunks[ i ].y;
             chunkCoords[ i ][ 2 ] = chunks[ i ].z;
 
-            for ( int j = 0; j < voxels[ i ].length; j++ )
-            {
-                voxels[ i ][ j ] = chunks[ i ].getVoxels()[ j ];
-            }
+            voxels[ i ] = chunks[ i ].getVoxels(); // a copy, so the chunk can still be edited while it's being written
         }
 
         try
@@ -176,21 +279,37 @@ public final class RegionIO
         try ( DataInputStream dis = new DataInputStream( new FileInputStream( f ) ) )
         {
 
+            byte[] voxels = new byte[ Chunk.VOLUME ];
+
             // read each chunk
-            for ( int i = 0; i < region.chunks.length; i++ )
+            for ( int i = 0; i < Region.VOLUME; i++ )
             {
 
-                // construct the chunk
-                Chunk c = new Chunk( region, dis.readInt(), dis.readInt(), dis.readInt() ); // create a chunk based on the chunk's position data
+                int cX = dis.readInt();
+                int cY = dis.readInt();
+                int cZ = dis.readInt();
 
-                // read the materials
-                for ( int j = 0; j < 4096; j++ )
+                // chunks which have already been created are filled in, so an off-heap region's slots are never shared by two chunks
+                Chunk c = region.findChunkAt( cX, cY, cZ );
+                if ( c == null )
                 {
-                    c.setMaterialAt( dis.readByte(), j ); // read the voxel id
+                    c = region.createChunk( cX, cY, cZ );
                 }
 
-                region.chunks[ i ] = c; // set the chunk value
+                // read the materials
+                dis.readFully( voxels );
+                c.setVoxels( voxels );
+
+                region.setChunk( c ); // set the chunk value, cancelling any generation still pending for it
             }
+
+            // the visibility masks on the chunks' borders were calculated against the chunks being replaced
+            for ( Chunk c : region.getCreatedChunks() )
+            {
+                c.updateVisibility();
+            }
+
+            region.rebuild(); // the new chunks have never been meshed
         }
         catch ( Exception e )
         {
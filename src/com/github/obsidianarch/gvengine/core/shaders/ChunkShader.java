@@ -0,0 +1,261 @@
+package com.github.obsidianarch.gvengine.core.shaders;
+
+import com.github.obsidianarch.gvengine.core.Material;
+import com.github.obsidianarch.gvengine.core.io.Lumberjack;
+import org.lwjgl.BufferUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.ARBFragmentShader.GL_FRAGMENT_SHADER_ARB;
+import static org.lwjgl.opengl.ARBShaderObjects.glUniform1iARB;
+import static org.lwjgl.opengl.ARBShaderObjects.glUniform3fARB;
+import static org.lwjgl.opengl.ARBVertexShader.GL_VERTEX_SHADER_ARB;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * The shader program which draws chunk meshes written in the packed vertex format. The vertex shader decodes each vertex's face into its normal and
+ * moves it from the chunk's local space by the chunk offset uniform, and the fragment shader looks the material's color up in a palette texture holding
+ * the color of every material.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class ChunkShader
+{
+
+    //
+    // Constants
+    //
+
+    /**
+     * The number of entries in the palette, one for every possible material.
+     */
+    private static final int PALETTE_SIZE = 256;
+
+    //
+    // Fields
+    //
+
+    /**
+     * The vertex shader.
+     */
+    private final Shader vertexShader;
+
+    /**
+     * The fragment shader.
+     */
+    private final Shader fragmentShader;
+
+    /**
+     * The program the shaders are linked into.
+     */
+    private final ShaderProgram program;
+
+    /**
+     * The location of the chunk offset uniform.
+     */
+    private final int offsetLocation;
+
+    /**
+     * The location of the palette sampler uniform.
+     */
+    private final int paletteLocation;
+
+    /**
+     * The texture containing the color of every material.
+     */
+    private int paletteTexture = -1;
+
+    /**
+     * If the program is currently in use.
+     */
+    private boolean enabled = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Compiles and links the chunk shader, then creates the material palette.
+     *
+     * @param vertexSource
+     *         The file containing the vertex shader's source.
+     * @param fragmentSource
+     *         The file containing the fragment shader's source.
+     *
+     * @throws IOException
+     *         If the shader files couldn't be read.
+     *
+     * @since 26.10.17
+     */
+    public ChunkShader( File vertexSource, File fragmentSource ) throws IOException
+    {
+        vertexShader = new Shader( GL_VERTEX_SHADER_ARB );
+        vertexShader.setSource( vertexSource );
+
+        fragmentShader = new Shader( GL_FRAGMENT_SHADER_ARB );
+        fragmentShader.setSource( fragmentSource );
+
+        if ( !vertexShader.getCompileStatus() )
+        {
+            Lumberjack.error( "ChunkShader", "Vertex shader failed to compile: %s", vertexShader.getErrorLog() );
+        }
+        if ( !fragmentShader.getCompileStatus() )
+        {
+            Lumberjack.error( "ChunkShader", "Fragment shader failed to compile: %s", fragmentShader.getErrorLog() );
+        }
+
+        program = new ShaderProgram();
+        program.attachShader( vertexShader );
+        program.attachShader( fragmentShader );
+        program.link();
+
+        if ( !program.isLinked() )
+        {
+            Lumberjack.error( "ChunkShader", "Chunk shader failed to link" );
+        }
+
+        offsetLocation = program.getUniformLocation( "chunkOffset" );
+        paletteLocation = program.getUniformLocation( "palette" );
+
+        updatePalette();
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Uses the chunk shader for the following draws, and binds the palette texture. Does nothing if the shader is already enabled.
+     *
+     * @since 26.10.17
+     */
+    public void enable()
+    {
+        if ( enabled )
+        {
+            return;
+        }
+
+        program.enable();
+        glBindTexture( GL_TEXTURE_2D, paletteTexture );
+        glUniform1iARB( paletteLocation, 0 ); // the palette is on the first texture unit
+
+        enabled = true;
+    }
+
+    /**
+     * Stops using the chunk shader. Does nothing if the shader isn't enabled.
+     *
+     * @since 26.10.17
+     */
+    public void disable()
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+
+        glBindTexture( GL_TEXTURE_2D, 0 );
+        ShaderProgram.disable();
+
+        enabled = false;
+    }
+
+    /**
+     * Writes the color of every material into the palette texture, this should be called again if materials are created after the shader.
+     *
+     * @since 26.10.17
+     */
+    public void updatePalette()
+    {
+        ByteBuffer colors = BufferUtils.createByteBuffer( PALETTE_SIZE * 4 );
+
+        for ( int i = 0; i < PALETTE_SIZE; i++ )
+        {
+            int color = Material.getColor( ( byte ) ( i - 128 ) ); // missing materials are 0, so they're left transparent
+
+            colors.put( ( byte ) ( color >>> 24 ) ).put( ( byte ) ( color >>> 16 ) ).put( ( byte ) ( color >>> 8 ) ).put( ( byte ) color );
+        }
+        colors.flip();
+
+        if ( paletteTexture == -1 )
+        {
+            paletteTexture = glGenTextures();
+        }
+
+        glBindTexture( GL_TEXTURE_2D, paletteTexture );
+        glTexParameteri( GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST ); // every texel is a separate material, so they mustn't be blended
+        glTexParameteri( GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST );
+        glTexImage2D( GL_TEXTURE_2D, 0, GL_RGBA8, PALETTE_SIZE, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, colors );
+        glBindTexture( GL_TEXTURE_2D, 0 );
+    }
+
+    /**
+     * Deletes the program, shaders, and palette texture from OpenGL.
+     *
+     * @since 26.10.17
+     */
+    public void delete()
+    {
+        disable();
+
+        program.delete();
+        fragmentShader.delete();
+        vertexShader.delete();
+
+        if ( paletteTexture != -1 )
+        {
+            glDeleteTextures( paletteTexture );
+            paletteTexture = -1;
+        }
+    }
+
+    //
+    // Setters
+    //
+
+    /**
+     * Sets the global offset of the chunk about to be drawn, the shader must be enabled.
+     *
+     * @param x
+     *         The global x offset of the chunk.
+     * @param y
+     *         The global y offset of the chunk.
+     * @param z
+     *         The global z offset of the chunk.
+     *
+     * @since 26.10.17
+     */
+    public void setChunkOffset( float x, float y, float z )
+    {
+        glUniform3fARB( offsetLocation, x, y, z );
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return If the shaders compiled and linked successfully.
+     *
+     * @since 26.10.17
+     */
+    public boolean isLinked()
+    {
+        return program.isLinked();
+    }
+
+    /**
+     * @return If the shader is currently in use.
+     *
+     * @since 26.10.17
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+}
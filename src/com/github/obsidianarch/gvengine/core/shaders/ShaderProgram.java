@@ -7,7 +7,7 @@ import static org.lwjgl.opengl.GL11.GL_TRUE;
  * An object representation of the low-level OpenGL shader programs. Allows for easily attaching shaders and enabling and disabling the shader.
  *
  * @author Austin
- * @version 14.03.30
+ * @version 26.10.17
  * @since 14.03.30
  */
 public class ShaderProgram
@@ -111,6 +111,21 @@ public class ShaderProgram
     // Getters
     //
 
+    /**
+     * Finds the location of a uniform variable, the program must have been linked first.
+     *
+     * @param name
+     *         The name of the uniform in the shader source.
+     *
+     * @return The location of the uniform, or -1 if no active uniform has that name.
+     *
+     * @since 26.10.17
+     */
+    public int getUniformLocation( String name )
+    {
+        return glGetUniformLocationARB( programID, name );
+    }
+
     /**
      * @return If the ShaderProgram was successfully validated.
      */
@@ -5,14 +5,17 @@ import com.github.obsidianarch.gvengine.core.NormalSystem;
 import com.github.obsidianarch.gvengine.core.PositionSystem;
 import com.github.obsidianarch.gvengine.core.VertexBufferObject;
 import org.lwjgl.util.vector.Vector3f;
+import org.magicwerk.brownies.collections.primitive.FloatGapList;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 /**
  * A set of vertices, normals, and faces saved in a file that is loaded by a ModelLoader and can be rendered as a VertexBufferObject.
  *
  * @author Austin
+ * @version 26.10.17
  * @since 14.04.19
  */
 public class Model
@@ -42,6 +45,16 @@ public class Model
      */
     private VertexBufferObject vbo;
 
+    /**
+     * The color system of the VertexBufferObject.
+     */
+    private final ColorSystem cs;
+
+    /**
+     * The normal system of the VertexBufferObject.
+     */
+    private final NormalSystem ns;
+
     /**
      * If the data is valid.
      */
@@ -73,6 +86,8 @@ public class Model
      */
     public Model( NormalSystem ns, ColorSystem cs )
     {
+        this.cs = cs;
+        this.ns = ns;
         vbo = new VertexBufferObject( PositionSystem.XYZ, cs, ns );
     }
 
@@ -81,48 +96,91 @@ public class Model
     //
 
     /**
-     * Validates the data contained by the underlying VertexBufferObject that is used by this model and updates it to any changed code.
+     * Validates the data contained by the underlying VertexBufferObject that is used by this model and updates it to any changed code. Every distinct
+     * pair of vertex and normal used by the faces becomes a single vertex in the VertexBufferObject, and the faces are drawn through an index buffer, so
+     * vertices shared by several faces are only stored (and transformed) once.
      *
      * @since 14.04.19
      */
     public void validate()
     {
-        // remove previous data
-        vbo.setCoordinates();
-        vbo.setChannels();
-        vbo.setNormals();
+        FloatGapList coordinates = new FloatGapList( vertices.size() * 3 );
+        FloatGapList channels = new FloatGapList( vertices.size() * cs.channels );
+        FloatGapList normalCoordinates = new FloatGapList( ns.coordinates == 0 ? 0 : normals.size() * 3 );
+
+        HashMap< Long, Integer > indexMap = new HashMap<>(); // the index of each vertex and normal pair that's already been added
+        int[] indices = new int[ faces.size() * 3 ];
 
-        // add the faces to the VertexBufferObject
-        for ( Face face : faces )
+        for ( int i = 0; i < faces.size(); i++ )
         {
+            Face face = faces.get( i );
+
+            indices[ ( i * 3 ) ] = getIndex( face.vertex.x, face.normal.x, indexMap, coordinates, channels, normalCoordinates );
+            indices[ ( i * 3 ) + 1 ] = getIndex( face.vertex.y, face.normal.y, indexMap, coordinates, channels, normalCoordinates );
+            indices[ ( i * 3 ) + 2 ] = getIndex( face.vertex.z, face.normal.z, indexMap, coordinates, channels, normalCoordinates );
+        }
+
+        vbo.setCoordinates( coordinates );
+        vbo.setChannels( channels );
+        vbo.setNormalCoordinates( normalCoordinates );
+        vbo.setIndices( indices );
+
+        vbo.validate(); // validates the vbo data
+        dataValid = true; // we have updated all the data in the VBO
+    }
 
-            // add the vertices
-            {
-                Vector3f vertex = vertices.get( ( int ) ( face.vertex.x - 1 ) ); // gets the first vertex the face contains
-                vbo.addCoordinates( vertex.x, vertex.y, vertex.z ); // adds the vertice's coordinates to the VBO
+    /**
+     * Finds the index of the vertex made from a vertex and normal pair, adding the vertex if the pair hasn't been used yet.
+     *
+     * @param vertexNumber
+     *         The (one based) number of the vertex in the model.
+     * @param normalNumber
+     *         The (one based) number of the normal in the model.
+     * @param indexMap
+     *         The indices of the pairs which have already been added.
+     * @param coordinates
+     *         The coordinates of the added vertices.
+     * @param channels
+     *         The color channels of the added vertices.
+     * @param normalCoordinates
+     *         The normals of the added vertices.
+     *
+     * @return The index of the vertex.
+     *
+     * @since 26.10.17
+     */
+    private int getIndex( float vertexNumber, float normalNumber, HashMap< Long, Integer > indexMap, FloatGapList coordinates, FloatGapList channels,
+                          FloatGapList normalCoordinates )
+    {
+        int vertexIndex = ( int ) ( vertexNumber - 1 );
+        int normalIndex = ns.coordinates == 0 ? 0 : ( int ) ( normalNumber - 1 ); // without normals only the vertex matters
+
+        Long key = ( ( long ) vertexIndex << 32 ) | ( normalIndex & 0xFFFFFFFFL );
+        Integer index = indexMap.get( key );
 
-                vertex = vertices.get( ( int ) ( face.vertex.y - 1 ) ); // gets the second vertex the face contains
-                vbo.addCoordinates( vertex.x, vertex.y, vertex.z ); // adds the vertice's coordinates to the VBO
+        if ( index != null )
+        {
+            return index; // this pair has already been added
+        }
 
-                vertex = vertices.get( ( int ) ( face.vertex.z - 1 ) ); // gets the third vertex the face contains
-                vbo.addCoordinates( vertex.x, vertex.y, vertex.z ); // adds the vertice's coordinates to the VBO
-            }
+        index = coordinates.size() / 3;
+        indexMap.put( key, index );
 
-            // add the normals
-            {
-                Vector3f normal = normals.get( ( int ) ( face.normal.x - 1 ) ); // gets the first normal the face contains
-                vbo.addCoordinates( normal.x, normal.y, normal.z ); // adds the vertice's coordinates to the VBO
+        Vector3f vertex = vertices.get( vertexIndex );
+        coordinates.addAll( vertex.x, vertex.y, vertex.z );
 
-                normal = normals.get( ( int ) ( face.normal.y - 1 ) ); // gets the second normal the face contains
-                vbo.addCoordinates( normal.x, normal.y, normal.z ); // adds the vertice's coordinates to the VBO
+        for ( int i = 0; i < cs.channels; i++ )
+        {
+            channels.add( 1.0f ); // models don't have colors of their own, so they're white
+        }
 
-                normal = normals.get( ( int ) ( face.normal.z - 1 ) ); // gets the third normal the face contains
-                vbo.addCoordinates( normal.x, normal.y, normal.z ); // adds the vertice's coordinates to the VBO
-            }
+        if ( ns.coordinates != 0 )
+        {
+            Vector3f normal = normals.get( normalIndex );
+            normalCoordinates.addAll( normal.x, normal.y, normal.z );
         }
 
-        vbo.validate(); // validates the vbo data
-        dataValid = true; // we have updated all the data in the VBO
+        return index;
     }
 
     /**
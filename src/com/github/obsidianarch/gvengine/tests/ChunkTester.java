@@ -74,6 +74,7 @@ public class ChunkTester
 
         OptionManager.registerClass( "Test", ChunkTester.class );
         OptionManager.registerClass( "Scheduler", Scheduler.class );
+        OptionManager.registerClass( "Meshing", MeshingPool.class );
         System.out.println();
 
         TestingHelper.createDisplay();
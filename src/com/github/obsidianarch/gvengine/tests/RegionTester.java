@@ -1,12 +1,21 @@
 package com.github.obsidianarch.gvengine.tests;
 
+import com.github.obsidianarch.gvengine.core.BinaryChunkMesher;
 import com.github.obsidianarch.gvengine.core.Chunk;
 import com.github.obsidianarch.gvengine.core.ChunkGenerator;
+import com.github.obsidianarch.gvengine.core.ChunkLod;
+import com.github.obsidianarch.gvengine.core.ChunkMesher;
+import com.github.obsidianarch.gvengine.core.FaceChunkMesher;
+import com.github.obsidianarch.gvengine.core.GreedyChunkMesher;
 import com.github.obsidianarch.gvengine.core.Material;
+import com.github.obsidianarch.gvengine.core.MeshCache;
+import com.github.obsidianarch.gvengine.core.MeshingPool;
 import com.github.obsidianarch.gvengine.core.Region;
+import com.github.obsidianarch.gvengine.core.RunLengthVoxelStorage;
 import com.github.obsidianarch.gvengine.core.Camera;
 import com.github.obsidianarch.gvengine.core.Controller;
 import com.github.obsidianarch.gvengine.core.Scheduler;
+import com.github.obsidianarch.gvengine.core.VoxelStorage;
 import com.github.obsidianarch.gvengine.core.input.Input;
 import com.github.obsidianarch.gvengine.core.input.InputMask;
 import com.github.obsidianarch.gvengine.core.input.InputMedium;
@@ -14,6 +23,7 @@ import com.github.obsidianarch.gvengine.core.input.InputMode;
 import com.github.obsidianarch.gvengine.core.options.*;
 import com.github.obsidianarch.gvengine.core.io.Lumberjack;
 import com.github.obsidianarch.gvengine.core.io.RegionIO;
+import com.github.obsidianarch.gvengine.core.shaders.ChunkShader;
 import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGModulus;
 import org.lwjgl.input.Keyboard;
 import org.lwjgl.opengl.Display;
@@ -51,6 +61,34 @@ public class RegionTester
     @SliderOption( minimum = -1, maximum = 120 )
     public static int FPSCap = -1;
 
+    /**
+     * If the chunks are meshed with the GreedyChunkMesher instead of the FaceChunkMesher.
+     */
+    @Option( "Greedy meshing" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean GreedyMeshing = false;
+
+    /**
+     * If the greedy meshes are built by the BinaryChunkMesher instead of the GreedyChunkMesher.
+     */
+    @Option( "Binary meshing" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean BinaryMeshing = true;
+
+    /**
+     * If the chunk meshes are built in the packed vertex format and drawn by the chunk shader.
+     */
+    @Option( "Packed vertices" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean PackedVertices = false;
+
+    /**
+     * If chunks which can't be seen from the camera through open space are skipped.
+     */
+    @Option( "Cave culling" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean CaveCulling = true;
+
     //
     // Option Listeners
     //
@@ -91,6 +129,12 @@ public class RegionTester
         OptionManager.initialize( args ); // initialize options from commandline (override the config file)
 
         OptionManager.registerClass( "Scheduler", Scheduler.class );
+        OptionManager.registerClass( "Meshing", MeshingPool.class );
+        OptionManager.registerClass( "LOD", ChunkLod.class );
+        OptionManager.registerClass( "Mesh cache", MeshCache.class );
+        OptionManager.registerClass( "Storage", VoxelStorage.class );
+        OptionManager.registerClass( "Cold storage", RunLengthVoxelStorage.class );
+        OptionManager.registerClass( "Region", Region.class );
         OptionManager.registerClass( "Test", RegionTester.class );
         System.out.println();
 
@@ -98,8 +142,18 @@ public class RegionTester
         TestingHelper.setupGL();
         TestingHelper.initInput();
 
+        Chunk.setMesher( createMesher() );
+
+        ChunkShader chunkShader = null;
+        if ( PackedVertices )
+        {
+            chunkShader = new ChunkShader( new File( "shaders/chunk/Vertex.glsl" ), new File( "shaders/chunk/Fragment.glsl" ) );
+            Chunk.setShader( chunkShader );
+        }
+
         Region region = new Region( new CGModulus(), 0, 0, 0 );
         region.rebuild();
+        Scheduler.scheduleRecurringEvent( "compressIdleChunks", region, 1000 ); // move untouched chunks into cold storage
 
         Camera camera = new Camera(); // the camera of the player
         camera.setMinimumPitch( 15f );
@@ -111,6 +165,7 @@ public class RegionTester
         Input.setBinding( "saveRegion", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, Keyboard.KEY_O );
         Input.setBinding( "loadRegion", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, Keyboard.KEY_L );
         Input.setBinding( "toggleVSync", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, Keyboard.KEY_V );
+        Input.setBinding( "toggleMesher", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, Keyboard.KEY_M );
         Input.setBinding( "addLighting", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, InputMask.CONTROL_MASK, Keyboard.KEY_L );
         Input.setBinding( "remLighting", InputMedium.KEYBOARD, InputMode.BUTTON_RELEASED, InputMask.MENU_MASK, Keyboard.KEY_L );
 
@@ -147,6 +202,10 @@ public class RegionTester
                     OptionManager.setValue( "VSync", "Enabled" );
                 }
             }
+            if ( Input.isBindingActive( "toggleMesher" ) )
+            {
+                toggleMesher( region );
+            }
             if ( Input.isBindingActive( "addLighting" ) )
             {
                 TestingHelper.enableLighting();
@@ -162,9 +221,46 @@ public class RegionTester
             TestingHelper.updateDisplay( "Region Tester", FPSCap );
         }
 
+        if ( chunkShader != null )
+        {
+            chunkShader.delete();
+        }
+
         TestingHelper.destroy(); // destroys everything
     }
 
+    /**
+     * Switches between the face and greedy meshers, then rebuilds the region with the new mesher.
+     *
+     * @param region
+     *         The region to rebuild.
+     *
+     * @since 26.10.17
+     */
+    private static void toggleMesher( Region region )
+    {
+        GreedyMeshing = !GreedyMeshing;
+        Chunk.setMesher( createMesher() );
+        region.rebuild();
+
+        Lumberjack.info( "Tester", "Meshing with the %s", Chunk.getMesher().getClass().getSimpleName() );
+    }
+
+    /**
+     * @return The mesher selected by the options.
+     *
+     * @since 26.10.17
+     */
+    private static ChunkMesher createMesher()
+    {
+        if ( !GreedyMeshing )
+        {
+            return new FaceChunkMesher();
+        }
+
+        return BinaryMeshing ? new BinaryChunkMesher() : new GreedyChunkMesher();
+    }
+
     /**
      * Loads the saved region from the given write directory.
      *
@@ -203,17 +299,18 @@ public class RegionTester
     {
         Random random = new Random();
 
-        for ( Chunk c : r.getChunks() )
+        byte[] data = new byte[ Chunk.VOLUME ];
+
+        for ( Chunk c : r.getCreatedChunks() )
         {
-            for ( int i = 0; i < 4096; i++ )
-            {
-                if ( ( random.nextFloat() * 1000 ) > 10 )
-                {
-                    continue; // 1% chance for the voxel to be removed
-                }
+            boolean[] mask = new boolean[ Chunk.VOLUME ];
 
-                c.setMaterialAt( ( byte ) 0, i );
+            for ( int i = 0; i < Chunk.VOLUME; i++ )
+            {
+                mask[ i ] = ( random.nextFloat() * 1000 ) <= 10; // 1% chance for the voxel to be removed
             }
+
+            c.setVoxels( data, mask );
         }
     }
 
@@ -229,11 +326,13 @@ public class RegionTester
     {
         Random random = new Random();
 
-        for ( Chunk c : r.getChunks() )
+        for ( Chunk c : r.getCreatedChunks() )
         {
+            byte[] data = c.getVoxels();
+
             for ( int i = 0; i < Chunk.VOLUME; i++ )
             {
-                if ( c.getVoxels()[ i ] != 0 )
+                if ( data[ i ] != 0 )
                 {
                     continue;
                 }
@@ -242,8 +341,10 @@ public class RegionTester
                     continue;
                 }
 
-                c.setMaterialAt( ( byte ) random.nextInt( 4 ), i );
+                data[ i ] = ( byte ) random.nextInt( 4 );
             }
+
+            c.setVoxels( data );
         }
     }
 
@@ -261,7 +362,15 @@ public class RegionTester
     {
         glLoadIdentity();
         camera.lookThrough();
-        region.render();
+
+        if ( CaveCulling )
+        {
+            region.render( camera );
+        }
+        else
+        {
+            region.render();
+        }
     }
 
 }
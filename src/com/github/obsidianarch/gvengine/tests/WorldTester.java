@@ -0,0 +1,161 @@
+package com.github.obsidianarch.gvengine.tests;
+
+import com.github.obsidianarch.gvengine.core.*;
+import com.github.obsidianarch.gvengine.core.input.Input;
+import com.github.obsidianarch.gvengine.core.options.*;
+import com.github.obsidianarch.gvengine.core.io.Lumberjack;
+import com.github.obsidianarch.gvengine.tests.chunkGenerators.CGModulus;
+import org.lwjgl.opengl.Display;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Tests the world, by flying through regions which are loaded and unloaded around the camera.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class WorldTester
+{
+
+    //
+    // Options
+    //
+
+    /**
+     * Changes the max fps OpenGL will render at.
+     */
+    @Option( "Max FPS" )
+    @SliderOption( minimum = -1, maximum = 120 )
+    public static int FPSCap = -1;
+
+    /**
+     * If the FPS is maxed out at the max refresh rate of the monitor.
+     */
+    @Option( "VSync" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean VSyncEnabled = false;
+
+    /**
+     * If chunks which can't be seen from the camera through open space are skipped.
+     */
+    @Option( "Cave culling" )
+    @ToggleOption( { "false", "true" } )
+    public static boolean CaveCulling = true;
+
+    //
+    // Option Listeners
+    //
+
+    /**
+     * Listens for when the VSync variable has been changed.
+     */
+    @OptionListener( "VSync" )
+    public static void onVSyncToggle()
+    {
+        Display.setVSyncEnabled( VSyncEnabled );
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Starts and runs the test.
+     *
+     * @param args
+     *         Command line arguments.
+     *
+     * @throws Exception
+     *         If something went wrong.
+     *
+     * @since 26.10.17
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        TestingHelper.CONFIG.read();
+        OptionManager.initialize( TestingHelper.CONFIG );
+        OptionManager.initialize( args );
+
+        OptionManager.registerClass( "Scheduler", Scheduler.class );
+        OptionManager.registerClass( "Meshing", MeshingPool.class );
+        OptionManager.registerClass( "LOD", ChunkLod.class );
+        OptionManager.registerClass( "Generation", GenerationPool.class );
+        OptionManager.registerClass( "Chunk cache", ChunkCache.class );
+        OptionManager.registerClass( "World", World.class );
+        OptionManager.registerClass( "Test", WorldTester.class );
+        System.out.println();
+
+        TestingHelper.createDisplay();
+        TestingHelper.setupGL();
+        TestingHelper.initInput();
+
+        Chunk.setMesher( new BinaryChunkMesher() );
+
+        World world = new World( new CGModulus() );
+        Scheduler.scheduleRecurringEvent( "compressIdleChunks", world, 1000 ); // move untouched chunks into cold storage
+
+        Camera camera = new Camera(); // the camera of the player
+        camera.setMinimumPitch( 15f );
+        camera.setMaximumPitch( 165f );
+        Controller controller = new Controller( camera ); // the controller for the camera
+
+        int regionCount = 0;
+        int residentCount = 0;
+
+        while ( !Display.isCloseRequested() )
+        {
+            glClear( GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT ); // clear the last frame
+
+            Input.poll(); // poll the input
+            TestingHelper.processInput( camera, controller ); // move and orient the player
+
+            world.update( camera ); // load and unload the regions around the player
+            if ( world.getRegionCount() != regionCount )
+            {
+                regionCount = world.getRegionCount();
+                Lumberjack.info( "Tester", "%d regions loaded", regionCount );
+            }
+
+            if ( Math.abs( world.getCache().getResidentCount() - residentCount ) >= 256 )
+            {
+                residentCount = world.getCache().getResidentCount();
+                Lumberjack.info( "Tester", "%d chunks in memory (%d KB)", residentCount, world.getCache().getResidentMemory() / 1024 );
+            }
+
+            Scheduler.doTick(); // ticks the scheduler
+            renderScene( camera, world ); // render the scene
+
+            TestingHelper.updateDisplay( "World Tester", FPSCap );
+        }
+
+        world.unloadAll();
+        TestingHelper.destroy(); // destroys everything
+    }
+
+    /**
+     * Renders the world.
+     *
+     * @param camera
+     *         The camera of the player.
+     * @param world
+     *         The world to render.
+     *
+     * @since 26.10.17
+     */
+    private static void renderScene( Camera camera, World world )
+    {
+        glLoadIdentity();
+        camera.lookThrough();
+
+        if ( CaveCulling )
+        {
+            world.render( camera );
+        }
+        else
+        {
+            world.render();
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.github.obsidianarch.gvengine.tests.chunkGenerators;
+
+import com.github.obsidianarch.gvengine.core.Chunk;
+import com.github.obsidianarch.gvengine.core.ChunkGenerator;
+
+import java.util.Random;
+
+/**
+ * Fills the chunk with random materials, a third of the voxels are left as air. The same seed always generates the same chunks.
+ *
+ * @version 26.10.17
+ * @since 26.10.17
+ */
+public class CGRandom extends ChunkGenerator
+{
+
+    /**
+     * The seed of the random voxels.
+     */
+    private final long seed;
+
+    /**
+     * @param seed
+     *         The seed of the random voxels.
+     *
+     * @since 26.10.17
+     */
+    public CGRandom( long seed )
+    {
+        this.seed = seed;
+    }
+
+    @Override
+    public void generateChunk( Chunk c )
+    {
+        // every chunk has its own sequence, so the voxels don't depend on the order chunks are generated in
+        Random random = new Random( seed + c.x + ( c.y * 31 ) + ( c.z * 961 ) );
+
+        for ( int i = 0; i < Chunk.VOLUME; i++ )
+        {
+            int roll = random.nextInt( 3 );
+            c.setMaterialAt( ( byte ) ( roll == 0 ? 0 : random.nextInt( 3 ) + 1 ), i );
+        }
+    }
+
+}
@@ -16,6 +16,8 @@ public class CGSphere extends ChunkGenerator
     @Override
     public void generateChunk( Chunk c )
     {
+        byte grass = Material.GRASS.byteID;
+
         for ( int z = 0; z < Chunk.LENGTH; z++ )
         {
             for ( int y = 0; y < Chunk.LENGTH; y++ )
@@ -30,7 +32,7 @@ public class CGSphere extends ChunkGenerator
 
                     if ( sqrt <= ( Chunk.LENGTH / 2 ) )
                     {
-                        c.setMaterialAt( Material.GRASS, x, y, z );
+                        c.setMaterialAt( grass, x, y, z );
                     }
 
                 }